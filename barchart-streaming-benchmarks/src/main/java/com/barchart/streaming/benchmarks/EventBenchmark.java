@@ -0,0 +1,53 @@
+package com.barchart.streaming.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.barchart.common.Action;
+import com.barchart.common.messaging.Event;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventBenchmark {
+	@Param({ "1", "10", "100" })
+	private int observerCount;
+	
+	private Event<Object> event;
+	private Object payload;
+	
+	@Setup
+	public void setup(final Blackhole blackhole) {
+		event = new Event<Object>("benchmark");
+		payload = new Object();
+		
+		for (int i = 0; i < observerCount; i++) {
+			event.register(new Action<Object>() {
+				@Override
+				public void execute(Object data) {
+					blackhole.consume(data);
+				}
+			});
+		}
+	}
+	
+	@Benchmark
+	public void fire() {
+		event.fire(payload);
+	}
+}
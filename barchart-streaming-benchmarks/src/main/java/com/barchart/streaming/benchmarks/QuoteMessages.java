@@ -0,0 +1,70 @@
+package com.barchart.streaming.benchmarks;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+public final class QuoteMessages {
+	public static final String SYMBOL = "TSLA";
+	
+	private QuoteMessages() {
+		
+	}
+	
+	public static JSONObject createSnapshot(final String symbol) {
+		final JSONObject returnRef = new JSONObject();
+		
+		try {
+			returnRef.put("symbol", symbol);
+			returnRef.put("sequence", 1000);
+			returnRef.put("online", true);
+			returnRef.put("flag", "p");
+			returnRef.put("mode", "R");
+			returnRef.put("session", "Z");
+			returnRef.put("day", "G");
+			returnRef.put("dayNum", 16);
+			returnRef.put("lastPrice", 212.34);
+			returnRef.put("previousPrice", 210.01);
+			returnRef.put("tradePrice", 212.34);
+			returnRef.put("tradeSize", 100);
+			returnRef.put("bidPrice", 212.33);
+			returnRef.put("bidSize", 3);
+			returnRef.put("askPrice", 212.35);
+			returnRef.put("askSize", 5);
+			returnRef.put("openPrice", 210.50);
+			returnRef.put("highPrice", 213.10);
+			returnRef.put("lowPrice", 209.87);
+			returnRef.put("settlementPrice", 210.01);
+			returnRef.put("volume", 1843221);
+			returnRef.put("openInterest", 0);
+			returnRef.put("time", "2016-03-16T14:31:02.000");
+			returnRef.put("timeDisplay", "14:31:02");
+		} catch (JSONException e) {
+			throw new IllegalStateException("Unable to construct quote snapshot.", e);
+		}
+		
+		return returnRef;
+	}
+	
+	public static JSONObject createDelta(final String symbol) {
+		final JSONObject returnRef = new JSONObject();
+		
+		try {
+			returnRef.put("symbol", symbol);
+			returnRef.put("sequence", 1001);
+			returnRef.put("lastPrice", 212.36);
+			returnRef.put("tradePrice", 212.36);
+			returnRef.put("tradeSize", 200);
+			returnRef.put("bidPrice", 212.35);
+			returnRef.put("bidSize", 4);
+			returnRef.put("askPrice", 212.37);
+			returnRef.put("askSize", 2);
+			returnRef.put("volume", 1843421);
+			returnRef.put("time", "2016-03-16T14:31:02.250");
+			returnRef.put("timeDisplay", "14:31:02");
+		} catch (JSONException e) {
+			throw new IllegalStateException("Unable to construct quote delta.", e);
+		}
+		
+		return returnRef;
+	}
+}
@@ -0,0 +1,64 @@
+package com.barchart.streaming.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.barchart.common.data.Synchronizer;
+import com.barchart.streaming.connection.synchronizers.QuoteCopySynchronizer;
+import com.barchart.streaming.connection.synchronizers.QuoteUpdateSynchronizer;
+import com.barchart.streaming.data.BasicMutableQuote;
+import com.barchart.streaming.data.MutableQuote;
+import com.barchart.streaming.data.PrimitiveMutableQuote;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QuoteSynchronizerBenchmark {
+	private JSONObject delta;
+	private MutableQuote quote;
+	private MutableQuote primitiveQuote;
+	
+	@Setup
+	public void setup() {
+		delta = QuoteMessages.createDelta(QuoteMessages.SYMBOL);
+		quote = new BasicMutableQuote(QuoteMessages.SYMBOL, new QuoteUpdateSynchronizer(QuoteMessages.SYMBOL, QuoteMessages.createSnapshot(QuoteMessages.SYMBOL)));
+		primitiveQuote = new PrimitiveMutableQuote(QuoteMessages.SYMBOL, new QuoteUpdateSynchronizer(QuoteMessages.SYMBOL, QuoteMessages.createSnapshot(QuoteMessages.SYMBOL)));
+	}
+	
+	@Benchmark
+	public MutableQuote synchronizeDelta() {
+		final Synchronizer<MutableQuote> synchronizer = new QuoteUpdateSynchronizer(QuoteMessages.SYMBOL, delta);
+		
+		synchronizer.synchronize(quote);
+		
+		return quote;
+	}
+	
+	@Benchmark
+	public MutableQuote synchronizeDeltaPrimitive() {
+		final Synchronizer<MutableQuote> synchronizer = new QuoteUpdateSynchronizer(QuoteMessages.SYMBOL, delta);
+		
+		synchronizer.synchronize(primitiveQuote);
+		
+		return primitiveQuote;
+	}
+	
+	@Benchmark
+	public Synchronizer<MutableQuote> createCopySynchronizer() {
+		return new QuoteCopySynchronizer(quote);
+	}
+}
@@ -0,0 +1,58 @@
+package com.barchart.streaming.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.barchart.common.Action;
+import com.barchart.common.messaging.RingBufferDispatcher;
+import com.barchart.common.messaging.WaitStrategy;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RingBufferDispatcherBenchmark {
+	@Param({ "Blocking", "Yielding", "BusySpin" })
+	private WaitStrategy waitStrategy;
+	
+	private RingBufferDispatcher dispatcher;
+	private Action<Object> action;
+	private Object payload;
+	
+	@Setup
+	public void setup() {
+		dispatcher = new RingBufferDispatcher("benchmark-dispatcher", 8192, waitStrategy);
+		payload = new Object();
+		
+		action = new Action<Object>() {
+			@Override
+			public void execute(Object data) {
+				return;
+			}
+		};
+	}
+	
+	@TearDown
+	public void tearDown() {
+		dispatcher.dispose();
+	}
+	
+	@Benchmark
+	public void dispatch() {
+		dispatcher.dispatch(0, action, payload);
+	}
+}
@@ -0,0 +1,116 @@
+package com.barchart.streaming.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.barchart.common.data.Synchronizer;
+import com.barchart.streaming.data.MutablePrimitiveQuote;
+import com.barchart.streaming.data.MutableQuote;
+import com.barchart.streaming.data.PrimitiveMutableQuote;
+import com.barchart.streaming.data.VersionedQuote;
+
+/*
+ * One thread applies top-of-book updates while another reads the bid and ask.
+ * The synchronized readers only read four fields; the versioned readers copy
+ * the entire quote, so the comparison favors the synchronized baseline.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VersionedQuoteBenchmark {
+	private VersionedQuote versionedQuote;
+
+	private PrimitiveMutableQuote lockedQuote;
+	private Object lock;
+
+	private Synchronizer<MutableQuote> synchronizer;
+
+	@Setup
+	public void setup() {
+		versionedQuote = new VersionedQuote(QuoteMessages.SYMBOL);
+
+		lockedQuote = new PrimitiveMutableQuote(QuoteMessages.SYMBOL);
+		lock = new Object();
+
+		synchronizer = new Synchronizer<MutableQuote>() {
+			private int counter;
+
+			@Override
+			public void synchronize(final MutableQuote target) {
+				final MutablePrimitiveQuote quote = (MutablePrimitiveQuote)target;
+				final int value = ++counter;
+
+				quote.setBidPrice(value);
+				quote.setBidSize(value);
+				quote.setAskPrice(value + 1);
+				quote.setAskSize(value);
+			}
+		};
+	}
+
+	@State(Scope.Thread)
+	public static class Reader {
+		public PrimitiveMutableQuote target;
+
+		@Setup
+		public void setup() {
+			target = new PrimitiveMutableQuote(QuoteMessages.SYMBOL);
+		}
+	}
+
+	@Benchmark
+	@Group("versioned")
+	@GroupThreads(1)
+	public void versionedWrite() {
+		versionedQuote.update(synchronizer);
+	}
+
+	@Benchmark
+	@Group("versioned")
+	@GroupThreads(1)
+	public void versionedRead(final Reader reader, final Blackhole blackhole) {
+		versionedQuote.read(reader.target);
+
+		blackhole.consume(reader.target.getBidPriceAsDouble());
+		blackhole.consume(reader.target.getBidSizeAsInt());
+		blackhole.consume(reader.target.getAskPriceAsDouble());
+		blackhole.consume(reader.target.getAskSizeAsInt());
+	}
+
+	@Benchmark
+	@Group("synchronized")
+	@GroupThreads(1)
+	public void synchronizedWrite() {
+		synchronized (lock) {
+			synchronizer.synchronize(lockedQuote);
+		}
+	}
+
+	@Benchmark
+	@Group("synchronized")
+	@GroupThreads(1)
+	public void synchronizedRead(final Blackhole blackhole) {
+		synchronized (lock) {
+			blackhole.consume(lockedQuote.getBidPriceAsDouble());
+			blackhole.consume(lockedQuote.getBidSizeAsInt());
+			blackhole.consume(lockedQuote.getAskPriceAsDouble());
+			blackhole.consume(lockedQuote.getAskSizeAsInt());
+		}
+	}
+}
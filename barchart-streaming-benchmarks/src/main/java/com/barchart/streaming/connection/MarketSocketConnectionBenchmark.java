@@ -0,0 +1,77 @@
+package com.barchart.streaming.connection;
+
+import java.util.concurrent.TimeUnit;
+
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.barchart.common.Action;
+import com.barchart.common.data.Synchronizer;
+import com.barchart.streaming.benchmarks.QuoteMessages;
+import com.barchart.streaming.data.BasicMutableQuote;
+import com.barchart.streaming.data.MutableQuote;
+import com.barchart.streaming.data.QuoteTable;
+
+/*
+ * Lives in the connection package so it can drive the package-private
+ * socket.io handlers directly, without an aggregator on the other end.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MarketSocketConnectionBenchmark {
+	@Param({ "false", "true" })
+	private boolean useQuoteTable;
+	
+	private MarketSocketConnection connection;
+	private JSONObject delta;
+	private MutableQuote observed;
+	
+	@Setup
+	public void setup() {
+		final MarketSocketConnectionOptions options = new MarketSocketConnectionOptions();
+		
+		if (useQuoteTable) {
+			options.setQuoteTable(new QuoteTable(1024));
+		}
+		
+		connection = new MarketSocketConnection("localhost", 8080, false, options);
+		delta = QuoteMessages.createDelta(QuoteMessages.SYMBOL);
+		observed = new BasicMutableQuote(QuoteMessages.SYMBOL);
+		
+		connection.subscribeToQuotes(QuoteMessages.SYMBOL, new Action<Synchronizer<MutableQuote>>() {
+			@Override
+			public void execute(Synchronizer<MutableQuote> synchronizer) {
+				synchronizer.synchronize(observed);
+			}
+		});
+		
+		connection.onQuoteSnapshot(QuoteMessages.createSnapshot(QuoteMessages.SYMBOL));
+	}
+	
+	@TearDown
+	public void tearDown() {
+		connection.dispose();
+	}
+	
+	@Benchmark
+	public MutableQuote quoteDelta() {
+		connection.onQuoteDelta(delta);
+		
+		return observed;
+	}
+}
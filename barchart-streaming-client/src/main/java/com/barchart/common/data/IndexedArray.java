@@ -0,0 +1,100 @@
+package com.barchart.common.data;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/*
+ * A growable array for items keyed by small, dense integers. Reads are
+ * lock-free; writes (and growth) are serialized on the array itself.
+ */
+public final class IndexedArray<T> {
+	private volatile AtomicReferenceArray<T> items;
+	private int size;
+	
+	public IndexedArray(final int initialCapacity) {
+		if (initialCapacity < 1) {
+			throw new IllegalArgumentException("The \"initialCapacity\" argument must be positive.");
+		}
+		
+		this.items = new AtomicReferenceArray<T>(initialCapacity);
+		this.size = 0;
+	}
+	
+	public T get(final int index) {
+		final AtomicReferenceArray<T> current = items;
+		
+		final T returnRef;
+		
+		if (index >= 0 && index < current.length()) {
+			returnRef = current.get(index);
+		} else {
+			returnRef = null;
+		}
+		
+		return returnRef;
+	}
+	
+	public synchronized T set(final int index, final T item) {
+		if (index < 0) {
+			throw new IllegalArgumentException("The \"index\" argument cannot be negative.");
+		}
+		
+		if (item == null) {
+			throw new IllegalArgumentException("The \"item\" argument is required.");
+		}
+		
+		ensureCapacity(index + 1);
+		
+		final T returnRef = items.getAndSet(index, item);
+		
+		if (returnRef == null) {
+			size++;
+		}
+		
+		return returnRef;
+	}
+	
+	public synchronized T remove(final int index) {
+		T returnRef = null;
+		
+		if (index >= 0 && index < items.length()) {
+			returnRef = items.getAndSet(index, null);
+			
+			if (returnRef != null) {
+				size--;
+			}
+		}
+		
+		return returnRef;
+	}
+	
+	public int getLength() {
+		return items.length();
+	}
+	
+	public synchronized int getSize() {
+		return size;
+	}
+	
+	public synchronized boolean getIsEmpty() {
+		return size == 0;
+	}
+	
+	private void ensureCapacity(final int capacity) {
+		final AtomicReferenceArray<T> current = items;
+		
+		if (current.length() < capacity) {
+			final AtomicReferenceArray<T> replacement = new AtomicReferenceArray<T>(Math.max(capacity, current.length() * 2));
+			
+			for (int i = 0; i < current.length(); i++) {
+				replacement.set(i, current.get(i));
+			}
+			
+			items = replacement;
+		}
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("[IndexedArray (size: %s)]", getSize());
+	}
+}
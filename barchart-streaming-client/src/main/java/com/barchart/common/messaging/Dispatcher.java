@@ -0,0 +1,12 @@
+package com.barchart.common.messaging;
+
+import com.barchart.common.Action;
+import com.barchart.common.Disposable;
+
+public interface Dispatcher extends Disposable {
+	/*
+	 * Actions dispatched with the same key are executed in the order they
+	 * were dispatched; actions with different keys may run concurrently.
+	 */
+	<T> void dispatch(int key, Action<T> action, T data);
+}
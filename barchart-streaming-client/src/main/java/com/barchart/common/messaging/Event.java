@@ -1,20 +1,45 @@
 package com.barchart.common.messaging;
 
-import java.util.Set;
-import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.barchart.common.Action;
 import com.barchart.common.Disposable;
 
+/*
+ * Observers are held in an immutable array which is replaced (under lock)
+ * on registration changes, so firing never locks or allocates. An exception
+ * thrown by one observer is logged and counted; the remaining observers are
+ * still notified.
+ */
 public class Event<T> {
+	private static final Logger logger;
+	
+	private static final Action<?>[] EMPTY = new Action<?>[0];
+	
 	private final String name;
 	
-	private Set<Action<T>> observers;
+	private volatile Action<T>[] observers;
+	private volatile Action<T> singleObserver;
+	
+	private final Object lock;
+	private final AtomicLong failureCount;
+	
+	static {
+		logger = LoggerFactory.getLogger(Event.class);
+	}
 
+	@SuppressWarnings("unchecked")
 	public Event(final String name) {
 		this.name = name;
 		
-		this.observers = new CopyOnWriteArraySet<Action<T>>();
+		this.observers = (Action<T>[])EMPTY;
+		this.singleObserver = null;
+		
+		this.lock = new Object();
+		this.failureCount = new AtomicLong(0L);
 	}
 	
 	public Disposable register(final Action<T> observer) {
@@ -22,7 +47,17 @@ public class Event<T> {
 			throw new IllegalArgumentException("The \"observer\" argument cannot be null.");
 		}
 		
-		observers.add(observer);
+		synchronized (lock) {
+			final Action<T>[] current = observers;
+			
+			if (indexOf(current, observer) < 0) {
+				final Action<T>[] replacement = copyOf(current, current.length + 1);
+				
+				replacement[current.length] = observer;
+				
+				setObservers(replacement);
+			}
+		}
 		
 		return new Disposable() {
 			@Override
@@ -37,21 +72,88 @@ public class Event<T> {
 			throw new IllegalArgumentException("The \"observer\" argument cannot be null.");
 		}
 		
-		observers.remove(observer);
+		synchronized (lock) {
+			final Action<T>[] current = observers;
+			final int index = indexOf(current, observer);
+			
+			if (index >= 0) {
+				final Action<T>[] replacement = copyOf(current, current.length - 1);
+				
+				System.arraycopy(current, index + 1, replacement, index, current.length - index - 1);
+				
+				setObservers(replacement);
+			}
+		}
 	}
 	
 	public void fire(T data) {
-		for (final Action<T> observer : observers) {
-			observer.execute(data);
+		final Action<T> single = singleObserver;
+		
+		if (single != null) {
+			execute(single, data);
+		} else {
+			final Action<T>[] current = observers;
+			
+			for (int i = 0; i < current.length; i++) {
+				execute(current[i], data);
+			}
 		}
 	}
 	
 	public boolean getIsEmpty() {
-		return observers.isEmpty();
+		return observers.length == 0;
+	}
+	
+	public int getObserverCount() {
+		return observers.length;
+	}
+	
+	public long getFailureCount() {
+		return failureCount.get();
+	}
+	
+	private void execute(final Action<T> observer, final T data) {
+		try {
+			observer.execute(data);
+		} catch (Exception e) {
+			failureCount.incrementAndGet();
+			
+			logger.error(String.format("An observer of %s failed.", this), e);
+		}
+	}
+	
+	private void setObservers(final Action<T>[] replacement) {
+		singleObserver = null;
+		observers = replacement;
+		
+		if (replacement.length == 1) {
+			singleObserver = replacement[0];
+		}
+	}
+	
+	private static <T> int indexOf(final Action<T>[] observers, final Action<T> observer) {
+		int returnVal = -1;
+		
+		for (int i = 0; i < observers.length && returnVal < 0; i++) {
+			if (observers[i].equals(observer)) {
+				returnVal = i;
+			}
+		}
+		
+		return returnVal;
+	}
+	
+	@SuppressWarnings("unchecked")
+	private static <T> Action<T>[] copyOf(final Action<T>[] observers, final int length) {
+		final Action<T>[] returnRef = (Action<T>[])new Action<?>[length];
+		
+		System.arraycopy(observers, 0, returnRef, 0, Math.min(observers.length, length));
+		
+		return returnRef;
 	}
 	
 	@Override
 	public String toString() {
-		return String.format("[Event (name: %)]", name);
+		return String.format("[Event (name: %s)]", name);
 	}
 }
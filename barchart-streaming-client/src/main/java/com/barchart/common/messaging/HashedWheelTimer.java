@@ -0,0 +1,254 @@
+package com.barchart.common.messaging;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.barchart.common.Disposable;
+
+/*
+ * Runs tasks after a delay, trading precision (one tick) for constant-time
+ * scheduling and cancellation of very large numbers of timeouts (in the
+ * style of Varghese and Lauck). New timeouts are handed to the worker thread
+ * through a lock-free queue; on each tick, the worker expires the bucket for
+ * that tick. Tasks run on the worker thread and must not block.
+ */
+public final class HashedWheelTimer implements Disposable {
+	private static final Logger logger;
+	
+	private final String name;
+	
+	private final long tickDuration;
+	private final int mask;
+	
+	private final List<Timeout>[] wheel;
+	private final Queue<Timeout> additions;
+	private final AtomicInteger pendingCount;
+	
+	private volatile boolean running;
+	private final Thread thread;
+	
+	private final long startTime;
+	
+	static {
+		logger = LoggerFactory.getLogger(HashedWheelTimer.class);
+	}
+	
+	public HashedWheelTimer(final String name, final long tickDuration, final int wheelSize) {
+		if (name == null) {
+			throw new IllegalArgumentException("The \"name\" argument is required.");
+		}
+		
+		if (tickDuration < 1) {
+			throw new IllegalArgumentException("The \"tickDuration\" argument must be positive.");
+		}
+		
+		if (wheelSize < 2 || Integer.bitCount(wheelSize) != 1) {
+			throw new IllegalArgumentException("The \"wheelSize\" argument must be a power of two.");
+		}
+		
+		this.name = name;
+		
+		this.tickDuration = TimeUnit.MILLISECONDS.toNanos(tickDuration);
+		this.mask = wheelSize - 1;
+		
+		@SuppressWarnings({ "rawtypes", "unchecked" })
+		final List<Timeout>[] buckets = new List[wheelSize];
+		
+		for (int i = 0; i < wheelSize; i++) {
+			buckets[i] = new ArrayList<Timeout>();
+		}
+		
+		this.wheel = buckets;
+		
+		this.additions = new ConcurrentLinkedQueue<Timeout>();
+		this.pendingCount = new AtomicInteger(0);
+		
+		this.startTime = System.nanoTime();
+		
+		this.running = true;
+		
+		this.thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				work();
+			}
+		}, name);
+		
+		this.thread.setDaemon(true);
+		this.thread.start();
+	}
+	
+	public Timeout schedule(final Runnable task, final long delay) {
+		if (task == null) {
+			throw new IllegalArgumentException("The \"task\" argument is required.");
+		}
+		
+		if (!running) {
+			throw new IllegalStateException("Unable to schedule task, the timer has been disposed.");
+		}
+		
+		final Timeout returnRef = new Timeout(task, System.nanoTime() - startTime + TimeUnit.MILLISECONDS.toNanos(Math.max(0, delay)));
+		
+		pendingCount.incrementAndGet();
+		additions.offer(returnRef);
+		
+		return returnRef;
+	}
+	
+	public int getPendingCount() {
+		return pendingCount.get();
+	}
+	
+	private void work() {
+		long tick = 0;
+		
+		while (running) {
+			final long deadline = tickDuration * (tick + 1);
+			long sleep = deadline - (System.nanoTime() - startTime);
+			
+			while (sleep > 0 && running) {
+				try {
+					TimeUnit.NANOSECONDS.sleep(sleep);
+				} catch (InterruptedException e) {
+					if (!running) {
+						return;
+					}
+				}
+				
+				sleep = deadline - (System.nanoTime() - startTime);
+			}
+			
+			transferAdditions(tick);
+			expire(wheel[(int)(tick & mask)], deadline);
+			
+			tick++;
+		}
+	}
+	
+	private void transferAdditions(final long currentTick) {
+		Timeout timeout;
+		
+		while ((timeout = additions.poll()) != null) {
+			if (timeout.getIsCancelled()) {
+				continue;
+			}
+			
+			final long ticks = Math.max(timeout.getDeadline() / tickDuration, currentTick);
+			
+			timeout.setRounds((ticks - currentTick) / wheel.length);
+			
+			wheel[(int)(ticks & mask)].add(timeout);
+		}
+	}
+	
+	private void expire(final List<Timeout> bucket, final long deadline) {
+		int retained = 0;
+		
+		for (int i = 0; i < bucket.size(); i++) {
+			final Timeout timeout = bucket.get(i);
+			
+			if (timeout.getIsCancelled()) {
+				continue;
+			}
+			
+			if (timeout.getRounds() <= 0 && timeout.getDeadline() <= deadline) {
+				if (timeout.expire()) {
+					try {
+						timeout.getTask().run();
+					} catch (Exception e) {
+						logger.error(String.format("A task scheduled by %s failed.", name), e);
+					}
+				}
+			} else {
+				timeout.setRounds(timeout.getRounds() - 1);
+				
+				bucket.set(retained++, timeout);
+			}
+		}
+		
+		for (int i = bucket.size() - 1; i >= retained; i--) {
+			bucket.remove(i);
+		}
+	}
+	
+	@Override
+	public void dispose() {
+		running = false;
+		
+		thread.interrupt();
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("[HashedWheelTimer (name: %s)]", name);
+	}
+	
+	public final class Timeout {
+		private static final int WAITING = 0;
+		private static final int CANCELLED = 1;
+		private static final int EXPIRED = 2;
+		
+		private final Runnable task;
+		private final long deadline;
+		private final AtomicInteger state;
+		
+		private long rounds;
+		
+		private Timeout(final Runnable task, final long deadline) {
+			this.task = task;
+			this.deadline = deadline;
+			this.state = new AtomicInteger(WAITING);
+		}
+		
+		public boolean cancel() {
+			final boolean returnVal = state.compareAndSet(WAITING, CANCELLED);
+			
+			if (returnVal) {
+				pendingCount.decrementAndGet();
+			}
+			
+			return returnVal;
+		}
+		
+		public boolean getIsCancelled() {
+			return state.get() == CANCELLED;
+		}
+		
+		public boolean getIsExpired() {
+			return state.get() == EXPIRED;
+		}
+		
+		private boolean expire() {
+			final boolean returnVal = state.compareAndSet(WAITING, EXPIRED);
+			
+			if (returnVal) {
+				pendingCount.decrementAndGet();
+			}
+			
+			return returnVal;
+		}
+		
+		private Runnable getTask() {
+			return task;
+		}
+		
+		private long getDeadline() {
+			return deadline;
+		}
+		
+		private long getRounds() {
+			return rounds;
+		}
+		
+		private void setRounds(final long value) {
+			rounds = value;
+		}
+	}
+}
@@ -0,0 +1,267 @@
+package com.barchart.common.messaging;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.barchart.common.Action;
+
+/*
+ * Hands work from any number of producer threads to a single dispatch thread
+ * through a pre-allocated ring of slots (in the style of the LMAX Disruptor).
+ * Producers claim a sequence, fill the slot and publish it; the dispatch
+ * thread executes slots strictly in sequence order. The wait strategy governs
+ * how the dispatch thread waits for work.
+ *
+ * When the ring is full, producers park briefly until the dispatch thread
+ * catches up; a slow action therefore applies backpressure to the producer
+ * (e.g. the socket.io event thread) rather than losing work. Once the
+ * dispatcher is disposed, dispatched work is dropped (and counted) instead,
+ * so producers are never blocked or failed by a dispatcher which has stopped.
+ * A failing action (including one throwing an Error) is logged and counted
+ * as dropped; it does not stop the dispatch thread.
+ */
+public final class RingBufferDispatcher implements Dispatcher {
+	private static final Logger logger;
+	
+	private final String name;
+	
+	private final int capacity;
+	private final int mask;
+	private final WaitStrategy waitStrategy;
+	
+	private final AtomicReferenceArray<Action<Object>> actions;
+	private final AtomicReferenceArray<Object> data;
+	private final AtomicLongArray published;
+	
+	private final AtomicLong claimed;
+	private final AtomicLong consumed;
+	private final AtomicLong maximumDepth;
+	private final AtomicLong droppedCount;
+	
+	private final ReentrantLock lock;
+	private final Condition available;
+	private volatile boolean waiting;
+	
+	private volatile boolean running;
+	private final Thread thread;
+	
+	static {
+		logger = LoggerFactory.getLogger(RingBufferDispatcher.class);
+	}
+	
+	public RingBufferDispatcher(final String name, final int capacity, final WaitStrategy waitStrategy) {
+		if (name == null) {
+			throw new IllegalArgumentException("The \"name\" argument is required.");
+		}
+		
+		if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+			throw new IllegalArgumentException("The \"capacity\" argument must be a power of two.");
+		}
+		
+		if (waitStrategy == null) {
+			throw new IllegalArgumentException("The \"waitStrategy\" argument is required.");
+		}
+		
+		this.name = name;
+		
+		this.capacity = capacity;
+		this.mask = capacity - 1;
+		this.waitStrategy = waitStrategy;
+		
+		this.actions = new AtomicReferenceArray<Action<Object>>(capacity);
+		this.data = new AtomicReferenceArray<Object>(capacity);
+		this.published = new AtomicLongArray(capacity);
+		
+		for (int i = 0; i < capacity; i++) {
+			published.set(i, -1L);
+		}
+		
+		this.claimed = new AtomicLong(-1L);
+		this.consumed = new AtomicLong(-1L);
+		this.maximumDepth = new AtomicLong(0L);
+		this.droppedCount = new AtomicLong(0L);
+		
+		this.lock = new ReentrantLock();
+		this.available = lock.newCondition();
+		this.waiting = false;
+		
+		this.running = true;
+		
+		this.thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				process();
+			}
+		}, name);
+		
+		this.thread.setDaemon(true);
+		this.thread.start();
+	}
+	
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> void dispatch(final int key, final Action<T> action, final T item) {
+		if (action == null) {
+			throw new IllegalArgumentException("The \"action\" argument is required.");
+		}
+		
+		if (!running) {
+			drop();
+			
+			return;
+		}
+		
+		final long sequence = claimed.incrementAndGet();
+		
+		updateMaximumDepth(sequence - consumed.get());
+		
+		while (sequence - capacity > consumed.get()) {
+			/* The ring will not drain once the dispatch thread has stopped. */
+			if (!running) {
+				drop();
+				
+				return;
+			}
+			
+			LockSupport.parkNanos(1L);
+		}
+		
+		final int index = (int)sequence & mask;
+		
+		actions.lazySet(index, (Action<Object>)action);
+		data.lazySet(index, item);
+		published.set(index, sequence);
+		
+		if (waitStrategy == WaitStrategy.Blocking && waiting) {
+			lock.lock();
+			
+			try {
+				available.signal();
+			} finally {
+				lock.unlock();
+			}
+		}
+	}
+	
+	public String getName() {
+		return name;
+	}
+	
+	public int getCapacity() {
+		return capacity;
+	}
+	
+	public WaitStrategy getWaitStrategy() {
+		return waitStrategy;
+	}
+	
+	public long getDepth() {
+		return Math.max(0L, claimed.get() - consumed.get());
+	}
+	
+	public long getMaximumDepth() {
+		return maximumDepth.get();
+	}
+	
+	public long getDispatchedCount() {
+		return consumed.get() + 1;
+	}
+	
+	/* Work which did not complete: its action failed, or it was dispatched after the dispatcher was disposed. */
+	public long getDroppedCount() {
+		return droppedCount.get();
+	}
+	
+	private void drop() {
+		if (droppedCount.incrementAndGet() == 1) {
+			logger.warn("{} has been disposed, dropping dispatched actions.", this);
+		}
+	}
+	
+	private void process() {
+		long sequence = consumed.get() + 1;
+		
+		while (running) {
+			final int index = (int)sequence & mask;
+			
+			if (published.get(index) == sequence) {
+				final Action<Object> action = actions.get(index);
+				final Object item = data.get(index);
+				
+				actions.lazySet(index, null);
+				data.lazySet(index, null);
+				
+				try {
+					action.execute(item);
+				} catch (Throwable t) {
+					droppedCount.incrementAndGet();
+					
+					logger.error(String.format("%s failed to execute dispatched action.", this), t);
+				}
+				
+				consumed.set(sequence++);
+			} else {
+				await(sequence, index);
+			}
+		}
+	}
+	
+	private void await(final long sequence, final int index) {
+		if (waitStrategy == WaitStrategy.Blocking) {
+			lock.lock();
+			
+			try {
+				waiting = true;
+				
+				while (running && published.get(index) != sequence) {
+					available.await();
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} finally {
+				waiting = false;
+				
+				lock.unlock();
+			}
+		} else if (waitStrategy == WaitStrategy.Yielding) {
+			Thread.yield();
+		}
+	}
+	
+	private void updateMaximumDepth(final long depth) {
+		long current = maximumDepth.get();
+		
+		while (depth > current && !maximumDepth.compareAndSet(current, depth)) {
+			current = maximumDepth.get();
+		}
+	}
+	
+	@Override
+	public void dispose() {
+		if (running) {
+			running = false;
+			
+			lock.lock();
+			
+			try {
+				available.signalAll();
+			} finally {
+				lock.unlock();
+			}
+			
+			thread.interrupt();
+		}
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("[RingBufferDispatcher (name: %s, capacity: %s, waitStrategy: %s)]", name, capacity, waitStrategy.getDescription());
+	}
+}
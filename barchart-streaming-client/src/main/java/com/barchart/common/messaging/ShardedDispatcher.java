@@ -0,0 +1,69 @@
+package com.barchart.common.messaging;
+
+import com.barchart.common.Action;
+
+/*
+ * Spreads work across several RingBufferDispatcher instances (each with its
+ * own thread). The key selects the shard, so actions sharing a key always
+ * run on the same thread, in order.
+ */
+public final class ShardedDispatcher implements Dispatcher {
+	private final String name;
+	private final RingBufferDispatcher[] shards;
+	
+	public ShardedDispatcher(final String name, final int shardCount, final int capacity, final WaitStrategy waitStrategy) {
+		if (name == null) {
+			throw new IllegalArgumentException("The \"name\" argument is required.");
+		}
+		
+		if (shardCount < 1) {
+			throw new IllegalArgumentException("The \"shardCount\" argument must be positive.");
+		}
+		
+		this.name = name;
+		this.shards = new RingBufferDispatcher[shardCount];
+		
+		for (int i = 0; i < shardCount; i++) {
+			shards[i] = new RingBufferDispatcher(String.format("%s-%s", name, i), capacity, waitStrategy);
+		}
+	}
+	
+	@Override
+	public <T> void dispatch(final int key, final Action<T> action, final T data) {
+		shards[getShardIndex(key)].dispatch(key, action, data);
+	}
+	
+	public int getShardIndex(final int key) {
+		return (key & Integer.MAX_VALUE) % shards.length;
+	}
+	
+	public int getShardCount() {
+		return shards.length;
+	}
+	
+	public RingBufferDispatcher getShard(final int index) {
+		return shards[index];
+	}
+	
+	public long getDepth() {
+		long returnVal = 0;
+		
+		for (int i = 0; i < shards.length; i++) {
+			returnVal += shards[i].getDepth();
+		}
+		
+		return returnVal;
+	}
+	
+	@Override
+	public void dispose() {
+		for (int i = 0; i < shards.length; i++) {
+			shards[i].dispose();
+		}
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("[ShardedDispatcher (name: %s, shards: %s)]", name, shards.length);
+	}
+}
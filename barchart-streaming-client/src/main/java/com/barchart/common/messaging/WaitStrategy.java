@@ -0,0 +1,22 @@
+package com.barchart.common.messaging;
+
+public enum WaitStrategy {
+	Blocking("Blocking"),
+	Yielding("Yielding"),
+	BusySpin("BusySpin");
+	
+	private final String description;
+	
+	WaitStrategy(final String description) {
+		this.description = description;
+	}
+	
+	public final String getDescription() {
+		return description;
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("[WaitStrategy (description: %s)]", description);
+	}
+}
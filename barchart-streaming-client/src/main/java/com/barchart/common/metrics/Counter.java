@@ -0,0 +1,39 @@
+package com.barchart.common.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+public final class Counter implements CounterMXBean {
+	private final String name;
+	private final AtomicLong count;
+	
+	public Counter(final String name) {
+		if (name == null) {
+			throw new IllegalArgumentException("The \"name\" argument is required.");
+		}
+		
+		this.name = name;
+		this.count = new AtomicLong(0L);
+	}
+	
+	public void increment() {
+		count.incrementAndGet();
+	}
+	
+	public void add(final long value) {
+		count.addAndGet(value);
+	}
+	
+	public String getName() {
+		return name;
+	}
+	
+	@Override
+	public long getCount() {
+		return count.get();
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("[Counter (name: %s, count: %s)]", name, count.get());
+	}
+}
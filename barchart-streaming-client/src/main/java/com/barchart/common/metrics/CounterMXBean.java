@@ -0,0 +1,5 @@
+package com.barchart.common.metrics;
+
+public interface CounterMXBean {
+	long getCount();
+}
@@ -0,0 +1,236 @@
+package com.barchart.common.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/*
+ * Counts non-negative values (typically nanoseconds) in a fixed array of
+ * buckets, in the style of HdrHistogram. Values below 2^precision have their
+ * own buckets; above that, each power of two is divided into 2^(precision - 1)
+ * buckets, so a percentile is accurate to within 2^(1 - precision) of the
+ * value. Values above the highest trackable value are counted as the highest
+ * trackable value. Recording does not allocate.
+ *
+ * A snapshot is a copy taken bucket by bucket, so values recorded while it is
+ * taken may be counted in some of its totals and not others.
+ */
+public final class Histogram implements HistogramMXBean {
+	private final String name;
+	
+	private final long highestTrackableValue;
+	private final int precision;
+	private final int halfCount;
+	
+	private final AtomicLongArray counts;
+	
+	private final AtomicLong totalCount;
+	private final AtomicLong totalValue;
+	private final AtomicLong minimum;
+	private final AtomicLong maximum;
+	
+	public Histogram(final String name, final long highestTrackableValue, final int precision) {
+		if (name == null) {
+			throw new IllegalArgumentException("The \"name\" argument is required.");
+		}
+		
+		if (precision < 1 || precision > 16) {
+			throw new IllegalArgumentException("The \"precision\" argument must be between 1 and 16.");
+		}
+		
+		if (highestTrackableValue < (1L << precision)) {
+			throw new IllegalArgumentException("The \"highestTrackableValue\" argument must be at least 2^precision.");
+		}
+		
+		this.name = name;
+		
+		this.highestTrackableValue = highestTrackableValue;
+		this.precision = precision;
+		this.halfCount = 1 << (precision - 1);
+		
+		this.counts = new AtomicLongArray(getIndex(highestTrackableValue) + 1);
+		
+		this.totalCount = new AtomicLong(0L);
+		this.totalValue = new AtomicLong(0L);
+		this.minimum = new AtomicLong(Long.MAX_VALUE);
+		this.maximum = new AtomicLong(0L);
+	}
+	
+	private Histogram(final Histogram source, final boolean reset) {
+		this.name = source.name;
+		
+		this.highestTrackableValue = source.highestTrackableValue;
+		this.precision = source.precision;
+		this.halfCount = source.halfCount;
+		
+		this.counts = new AtomicLongArray(source.counts.length());
+		
+		for (int i = 0; i < counts.length(); i++) {
+			counts.set(i, reset ? source.counts.getAndSet(i, 0L) : source.counts.get(i));
+		}
+		
+		if (reset) {
+			this.totalCount = new AtomicLong(source.totalCount.getAndSet(0L));
+			this.totalValue = new AtomicLong(source.totalValue.getAndSet(0L));
+			this.minimum = new AtomicLong(source.minimum.getAndSet(Long.MAX_VALUE));
+			this.maximum = new AtomicLong(source.maximum.getAndSet(0L));
+		} else {
+			this.totalCount = new AtomicLong(source.totalCount.get());
+			this.totalValue = new AtomicLong(source.totalValue.get());
+			this.minimum = new AtomicLong(source.minimum.get());
+			this.maximum = new AtomicLong(source.maximum.get());
+		}
+	}
+	
+	public void record(final long value) {
+		final long bounded = Math.min(Math.max(value, 0L), highestTrackableValue);
+		
+		counts.incrementAndGet(getIndex(bounded));
+		
+		totalCount.incrementAndGet();
+		totalValue.addAndGet(bounded);
+		
+		long current;
+		
+		while (bounded < (current = minimum.get()) && !minimum.compareAndSet(current, bounded)) {
+			continue;
+		}
+		
+		while (bounded > (current = maximum.get()) && !maximum.compareAndSet(current, bounded)) {
+			continue;
+		}
+	}
+	
+	/* A copy of the histogram; optionally, the histogram is reset as it is copied (so no values are lost between snapshots). */
+	public Histogram getSnapshot(final boolean reset) {
+		return new Histogram(this, reset);
+	}
+	
+	public void reset() {
+		for (int i = 0; i < counts.length(); i++) {
+			counts.set(i, 0L);
+		}
+		
+		totalCount.set(0L);
+		totalValue.set(0L);
+		minimum.set(Long.MAX_VALUE);
+		maximum.set(0L);
+	}
+	
+	private int getIndex(final long value) {
+		final int returnVal;
+		
+		if (value < (halfCount << 1)) {
+			returnVal = (int)value;
+		} else {
+			/* Shift so that the value keeps its "precision" most significant bits. */
+			final int shift = 63 - Long.numberOfLeadingZeros(value) - (precision - 1);
+			
+			returnVal = shift * halfCount + (int)(value >>> shift);
+		}
+		
+		return returnVal;
+	}
+	
+	/* The highest value counted in the same bucket as values at the index. */
+	private long getHighestEquivalentValue(final int index) {
+		final long returnVal;
+		
+		if (index < (halfCount << 1)) {
+			returnVal = index;
+		} else {
+			final int shift = index / halfCount - 1;
+			final long mantissa = index - shift * halfCount;
+			
+			returnVal = ((mantissa + 1) << shift) - 1;
+		}
+		
+		return returnVal;
+	}
+	
+	public String getName() {
+		return name;
+	}
+	
+	public long getHighestTrackableValue() {
+		return highestTrackableValue;
+	}
+	
+	public int getPrecision() {
+		return precision;
+	}
+	
+	@Override
+	public long getCount() {
+		return totalCount.get();
+	}
+	
+	@Override
+	public long getMinimum() {
+		final long value = minimum.get();
+		
+		return value == Long.MAX_VALUE ? 0 : value;
+	}
+	
+	@Override
+	public long getMaximum() {
+		return maximum.get();
+	}
+	
+	@Override
+	public double getMean() {
+		final long count = totalCount.get();
+		
+		return count == 0 ? 0.0 : (double)totalValue.get() / count;
+	}
+	
+	/* The value which the given percentage (0 to 100) of recorded values do not exceed. */
+	public long getValueAtPercentile(final double percentile) {
+		long count = 0;
+		
+		for (int i = 0; i < counts.length(); i++) {
+			count += counts.get(i);
+		}
+		
+		final long target = Math.max(1L, (long)Math.ceil(Math.min(Math.max(percentile, 0.0), 100.0) / 100.0 * count));
+		
+		long returnVal = 0;
+		long cumulative = 0;
+		
+		for (int i = 0; i < counts.length() && count > 0; i++) {
+			cumulative += counts.get(i);
+			
+			if (cumulative >= target) {
+				returnVal = Math.min(getHighestEquivalentValue(i), getMaximum());
+				
+				break;
+			}
+		}
+		
+		return returnVal;
+	}
+	
+	@Override
+	public long get50thPercentile() {
+		return getValueAtPercentile(50.0);
+	}
+	
+	@Override
+	public long get90thPercentile() {
+		return getValueAtPercentile(90.0);
+	}
+	
+	@Override
+	public long get99thPercentile() {
+		return getValueAtPercentile(99.0);
+	}
+	
+	@Override
+	public long get999thPercentile() {
+		return getValueAtPercentile(99.9);
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("[Histogram (name: %s, count: %s)]", name, totalCount.get());
+	}
+}
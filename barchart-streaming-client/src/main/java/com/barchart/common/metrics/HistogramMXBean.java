@@ -0,0 +1,19 @@
+package com.barchart.common.metrics;
+
+public interface HistogramMXBean {
+	long getCount();
+	
+	long getMinimum();
+	
+	long getMaximum();
+	
+	double getMean();
+	
+	long get50thPercentile();
+	
+	long get90thPercentile();
+	
+	long get99thPercentile();
+	
+	long get999thPercentile();
+}
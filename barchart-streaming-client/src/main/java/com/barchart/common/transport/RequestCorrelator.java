@@ -0,0 +1,246 @@
+package com.barchart.common.transport;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.barchart.common.Action;
+import com.barchart.common.messaging.HashedWheelTimer;
+
+/*
+ * Tracks requests awaiting a response. Each request is assigned an identifier
+ * from a counter and a deadline on a shared timer; it completes when the
+ * response arrives, or fails when the deadline passes, the connection is
+ * closed or it is lost more often than the retry limit allows. A request is
+ * completed or failed exactly once.
+ */
+final class RequestCorrelator {
+	private static final Logger logger;
+	private static final HashedWheelTimer timer;
+	
+	static final long QUEUED = -1L;
+	static final long LOST = 0L;
+	
+	private final long timeout;
+	private final int retries;
+	
+	private final AtomicLong sequence;
+	private final ConcurrentMap<String, PendingRequest> pending;
+	
+	private final AtomicLong completedCount;
+	private final AtomicLong failedCount;
+	private final AtomicLong retriedCount;
+	
+	static {
+		logger = LoggerFactory.getLogger(RequestCorrelator.class);
+		
+		timer = new HashedWheelTimer("socket-request-timeouts", 100, 512);
+	}
+	
+	public RequestCorrelator(final long timeout, final int retries) {
+		this.timeout = timeout;
+		this.retries = retries;
+		
+		this.sequence = new AtomicLong(0L);
+		this.pending = new ConcurrentHashMap<String, PendingRequest>(16, 0.75f, 2);
+		
+		this.completedCount = new AtomicLong(0L);
+		this.failedCount = new AtomicLong(0L);
+		this.retriedCount = new AtomicLong(0L);
+	}
+	
+	public PendingRequest register(final SocketChannel socketChannel, final JSONObject data, final Action<JSONObject> callback, final Action<RequestFailure> failureCallback) {
+		final PendingRequest returnRef = new PendingRequest(Long.toString(sequence.incrementAndGet()), socketChannel, data, callback, failureCallback, retries);
+		
+		pending.put(returnRef.getRequestId(), returnRef);
+		
+		returnRef.setTimeout(timer.schedule(new Runnable() {
+			@Override
+			public void run() {
+				fail(returnRef, RequestFailure.Timeout);
+			}
+		}, timeout));
+		
+		return returnRef;
+	}
+	
+	public void complete(final String requestId, final JSONObject response) {
+		final PendingRequest request = pending.remove(requestId);
+		
+		if (request != null) {
+			cancelTimeout(request);
+			
+			completedCount.incrementAndGet();
+			
+			try {
+				request.getCallback().execute(response);
+			} catch (Exception e) {
+				logger.error(String.format("Response handler failed for request %s.", requestId), e);
+			}
+		} else {
+			logger.warn("Received response without corresponding request {}.", requestId);
+		}
+	}
+	
+	public void fail(final PendingRequest request, final RequestFailure failure) {
+		if (pending.remove(request.getRequestId(), request)) {
+			cancelTimeout(request);
+			
+			failedCount.incrementAndGet();
+			
+			logger.debug("Request {} to {} failed ({}).", request.getRequestId(), request.getSocketChannel(), failure.getDescription());
+			
+			if (request.getFailureCallback() != null) {
+				try {
+					request.getFailureCallback().execute(failure);
+				} catch (Exception e) {
+					logger.error(String.format("Failure handler failed for request %s.", request.getRequestId()), e);
+				}
+			}
+		}
+	}
+	
+	public void failAll(final RequestFailure failure) {
+		final Iterator<PendingRequest> iterator = pending.values().iterator();
+		
+		while (iterator.hasNext()) {
+			fail(iterator.next(), failure);
+		}
+	}
+	
+	public boolean getIsPending(final PendingRequest request) {
+		return pending.get(request.getRequestId()) == request;
+	}
+	
+	/* Fails requests transmitted before the epoch which cannot be retried; returns the rest. */
+	public List<PendingRequest> recover(final long epoch) {
+		final List<PendingRequest> returnRef = new ArrayList<PendingRequest>();
+		
+		final Iterator<PendingRequest> iterator = pending.values().iterator();
+		
+		while (iterator.hasNext()) {
+			final PendingRequest request = iterator.next();
+			final long transmitted = request.getEpoch();
+			
+			if (transmitted != QUEUED && transmitted < epoch) {
+				if (request.retry()) {
+					retriedCount.incrementAndGet();
+					
+					returnRef.add(request);
+				} else {
+					fail(request, RequestFailure.ConnectionLost);
+				}
+			}
+		}
+		
+		return returnRef;
+	}
+	
+	private static void cancelTimeout(final PendingRequest request) {
+		final HashedWheelTimer.Timeout timeout = request.getTimeout();
+		
+		if (timeout != null) {
+			timeout.cancel();
+		}
+	}
+	
+	public int getPendingCount() {
+		return pending.size();
+	}
+	
+	public long getCompletedCount() {
+		return completedCount.get();
+	}
+	
+	public long getFailedCount() {
+		return failedCount.get();
+	}
+	
+	public long getRetriedCount() {
+		return retriedCount.get();
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("[RequestCorrelator (timeout: %s, retries: %s)]", timeout, retries);
+	}
+	
+	static final class PendingRequest {
+		private final String requestId;
+		private final SocketChannel socketChannel;
+		private final JSONObject data;
+		
+		private final Action<JSONObject> callback;
+		private final Action<RequestFailure> failureCallback;
+		
+		private int retries;
+		private volatile long epoch;
+		
+		private volatile HashedWheelTimer.Timeout timeout;
+		
+		public PendingRequest(final String requestId, final SocketChannel socketChannel, final JSONObject data, final Action<JSONObject> callback, final Action<RequestFailure> failureCallback, final int retries) {
+			this.requestId = requestId;
+			this.socketChannel = socketChannel;
+			this.data = data;
+			
+			this.callback = callback;
+			this.failureCallback = failureCallback;
+			
+			this.retries = retries;
+			this.epoch = QUEUED;
+		}
+		
+		public String getRequestId() {
+			return requestId;
+		}
+		
+		public SocketChannel getSocketChannel() {
+			return socketChannel;
+		}
+		
+		public JSONObject getData() {
+			return data;
+		}
+		
+		public Action<JSONObject> getCallback() {
+			return callback;
+		}
+		
+		public Action<RequestFailure> getFailureCallback() {
+			return failureCallback;
+		}
+		
+		public long getEpoch() {
+			return epoch;
+		}
+		
+		public void setEpoch(final long value) {
+			epoch = value;
+		}
+		
+		public HashedWheelTimer.Timeout getTimeout() {
+			return timeout;
+		}
+		
+		public void setTimeout(final HashedWheelTimer.Timeout value) {
+			timeout = value;
+		}
+		
+		private boolean retry() {
+			final boolean returnVal = retries > 0;
+			
+			if (returnVal) {
+				retries--;
+			}
+			
+			return returnVal;
+		}
+	}
+}
@@ -0,0 +1,22 @@
+package com.barchart.common.transport;
+
+public enum RequestFailure {
+	NotConnected("Not Connected"),
+	ConnectionLost("Connection Lost"),
+	Timeout("Timeout");
+	
+	private final String description;
+	
+	RequestFailure(final String description) {
+		this.description = description;
+	}
+	
+	public final String getDescription() {
+		return description;
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("[RequestFailure (description: %s)]", description);
+	}
+}
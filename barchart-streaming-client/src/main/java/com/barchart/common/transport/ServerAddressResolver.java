@@ -0,0 +1,200 @@
+package com.barchart.common.transport;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.barchart.common.Action;
+
+/*
+ * Resolves the address of the server behind a load balancer (by querying the
+ * host's /ip endpoint) on a background thread. Results are cached for a fixed
+ * time; if a query fails, the last address which was resolved successfully
+ * is used instead, regardless of its age.
+ */
+final class ServerAddressResolver {
+	private static final Logger logger;
+	private static final ExecutorService executor;
+	private static final ServerAddressResolver shared;
+	
+	private static final String INVALID_ADDRESS = "invalid-host";
+	
+	private final long expiration;
+	private final int timeout;
+	
+	private final ConcurrentMap<String, ResolvedAddress> addresses;
+	
+	static {
+		logger = LoggerFactory.getLogger(ServerAddressResolver.class);
+		
+		executor = Executors.newCachedThreadPool(new ThreadFactory() {
+			@Override
+			public Thread newThread(final Runnable runnable) {
+				final Thread thread = new Thread(runnable, "server-address-resolver");
+				
+				thread.setDaemon(true);
+				
+				return thread;
+			}
+		});
+		
+		shared = new ServerAddressResolver(300000, 30000);
+	}
+	
+	public ServerAddressResolver(final long expiration, final int timeout) {
+		this.expiration = expiration;
+		this.timeout = timeout;
+		
+		this.addresses = new ConcurrentHashMap<String, ResolvedAddress>(16, 0.75f, 2);
+	}
+	
+	public static ServerAddressResolver getShared() {
+		return shared;
+	}
+	
+	/* The callback runs on the calling thread when no query is required, otherwise on a background thread. */
+	public void resolve(final String host, final int port, final boolean secure, final Action<String> callback) {
+		resolve(host, port, secure, false, callback);
+	}
+	
+	/* When refreshing, the cached address is ignored (but still used as a fallback). */
+	public void resolve(final String host, final int port, final boolean secure, final boolean refresh, final Action<String> callback) {
+		final String cached = getCachedAddress(host, port, secure, refresh);
+		
+		if (cached != null) {
+			callback.execute(cached);
+		} else {
+			executor.execute(new Runnable() {
+				@Override
+				public void run() {
+					callback.execute(query(host, port));
+				}
+			});
+		}
+	}
+	
+	/* Blocks the calling thread when a query is required. */
+	public String resolve(final String host, final int port, final boolean secure) {
+		final String cached = getCachedAddress(host, port, secure, false);
+		
+		final String returnRef;
+		
+		if (cached != null) {
+			returnRef = cached;
+		} else {
+			returnRef = query(host, port);
+		}
+		
+		return returnRef;
+	}
+	
+	private String getCachedAddress(final String host, final int port, final boolean secure, final boolean refresh) {
+		final String returnRef;
+		
+		if (secure || host.equals("localhost")) {
+			returnRef = host;
+		} else if (refresh) {
+			returnRef = null;
+		} else {
+			final ResolvedAddress address = addresses.get(getKey(host, port));
+			
+			if (address != null && address.getTimestamp() + expiration > System.currentTimeMillis()) {
+				returnRef = address.getAddress();
+			} else {
+				returnRef = null;
+			}
+		}
+		
+		return returnRef;
+	}
+	
+	private String query(final String host, final int port) {
+		final String key = getKey(host, port);
+		
+		String returnRef;
+		
+		BufferedReader bufferedReader = null;
+		
+		try {
+			final URL url = new URL(String.format("http://%s:%s/ip", host, port));
+			final HttpURLConnection connection = (HttpURLConnection)url.openConnection();
+			
+			connection.setRequestMethod("GET");
+			connection.setConnectTimeout(timeout);
+			connection.setReadTimeout(timeout);
+			
+			connection.connect();
+			
+			bufferedReader = new BufferedReader(new InputStreamReader(connection.getInputStream()));
+			
+			returnRef = bufferedReader.readLine();
+			
+			if (returnRef == null || returnRef.trim().isEmpty()) {
+				throw new IOException("The server returned an empty address.");
+			}
+			
+			returnRef = returnRef.trim();
+			
+			addresses.put(key, new ResolvedAddress(returnRef, System.currentTimeMillis()));
+		} catch (Exception e) {
+			final ResolvedAddress lastKnownGood = addresses.get(key);
+			
+			if (lastKnownGood != null) {
+				logger.warn(String.format("Unable to query server for IP address, using last known address %s.", lastKnownGood.getAddress()), e);
+				
+				returnRef = lastKnownGood.getAddress();
+			} else {
+				logger.error("Unable to query server for IP address.", e);
+				
+				returnRef = INVALID_ADDRESS;
+			}
+		} finally {
+			if (bufferedReader != null) {
+				try {
+					bufferedReader.close();
+				} catch (IOException e) {
+					logger.error("Unable to close BufferedReader", e);
+				}
+			}
+		}
+		
+		return returnRef;
+	}
+	
+	private static String getKey(final String host, final int port) {
+		return host + ":" + port;
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("[ServerAddressResolver (expiration: %s)]", expiration);
+	}
+	
+	private static final class ResolvedAddress {
+		private final String address;
+		private final long timestamp;
+		
+		public ResolvedAddress(final String address, final long timestamp) {
+			this.address = address;
+			this.timestamp = timestamp;
+		}
+		
+		public String getAddress() {
+			return address;
+		}
+		
+		public long getTimestamp() {
+			return timestamp;
+		}
+	}
+}
@@ -1,7 +1,12 @@
 package com.barchart.common.transport;
 
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.json.JSONObject;
 import org.slf4j.Logger;
@@ -10,20 +15,47 @@ import org.slf4j.LoggerFactory;
 import com.barchart.common.Action;
 import com.barchart.common.Disposable;
 import com.barchart.common.messaging.Event;
+import com.barchart.common.metrics.Counter;
+import com.barchart.common.metrics.MetricsRegistry;
 
 import io.socket.client.Socket;
 import io.socket.emitter.Emitter;
 
 public abstract class SocketConnection implements Disposable {
 	private static final Logger logger;
+	
+	private static final int MAXIMUM_QUEUED_MESSAGES = 65536;
+	
+	private static final long REQUEST_TIMEOUT = 30000;
+	private static final int REQUEST_RETRIES = 1;
 
 	private final String host;
 	private final int port;
 	private final boolean secure;
 
-	private SocketConnector socketConnector;
-	private SocketConnectionState connectionState;
+	private volatile SocketConnector socketConnector;
+	private volatile SocketConnectionState connectionState;
 	private final Object connectionLock;
+	private volatile boolean disposed;
+	
+	private final AtomicInteger connectorGeneration;
+	
+	private final boolean hotStandby;
+	private volatile SocketConnector standbyConnector;
+	private final AtomicInteger standbyGeneration;
+	
+	private final MetricsRegistry metrics;
+	private final Counter droppedCounter;
+	private final Counter reconnectCounter;
+	private final Counter rebuildCounter;
+	private final Counter failoverCounter;
+	
+	private final Queue<OutboundMessage> outboundQueue;
+	private final AtomicInteger outboundQueueSize;
+	private final AtomicBoolean outboundDraining;
+	
+	private final RequestCorrelator requestCorrelator;
+	private volatile long connectionEpoch;
 	
 	private final Event<SocketConnectionState> connectionStateChanged;
 	
@@ -34,6 +66,10 @@ public abstract class SocketConnection implements Disposable {
 	}
 	
 	public SocketConnection(final String host, final int port, final boolean secure) {
+		this(host, port, secure, false);
+	}
+	
+	public SocketConnection(final String host, final int port, final boolean secure, final boolean hotStandby) {
 		if (host == null) {
 			throw new IllegalArgumentException("The \"host\" argument is required.");
 		}
@@ -49,18 +85,49 @@ public abstract class SocketConnection implements Disposable {
 		this.socketConnector = null;
 		this.connectionState = SocketConnectionState.Disconnected;
 		this.connectionLock = new Object();
+		this.disposed = false;
+		
+		this.connectorGeneration = new AtomicInteger(0);
+		
+		this.hotStandby = hotStandby;
+		this.standbyConnector = null;
+		this.standbyGeneration = new AtomicInteger(0);
+		
+		this.metrics = new MetricsRegistry();
+		this.droppedCounter = metrics.getCounter("outbound.dropped");
+		this.reconnectCounter = metrics.getCounter("reconnects");
+		this.rebuildCounter = metrics.getCounter("connectorRebuilds");
+		this.failoverCounter = metrics.getCounter("failovers");
+		
+		this.outboundQueue = new ConcurrentLinkedQueue<OutboundMessage>();
+		this.outboundQueueSize = new AtomicInteger(0);
+		this.outboundDraining = new AtomicBoolean(false);
+		
+		this.requestCorrelator = new RequestCorrelator(REQUEST_TIMEOUT, REQUEST_RETRIES);
+		this.connectionEpoch = RequestCorrelator.LOST + 1;
 		
 		this.connectionStateChanged = new Event<SocketConnectionState>("connectionStateChanged");
 		
 		this.subscriptions = new LinkedHashMap<SocketSubscription, Disposable>();
 		
-		createSocketConnector();
+		createSocketConnector(false);
+		
+		registerSocketEventListener(BasicSocketChannel.Response, new Emitter.Listener() {
+			@Override
+			public void call(Object... args) {
+				final JSONObject data = (JSONObject)args[0];
+				
+				requestCorrelator.complete(data.optString("requestId"), data.optJSONObject("response"));
+			}
+		});
 	}
 	
 	public final void connect() {
 		synchronized (connectionLock) {
-			if (changeConnectionState(SocketConnectionState.Connecting)) {				
-				socketConnector.connect();
+			if (changeConnectionState(SocketConnectionState.Connecting)) {
+				if (socketConnector != null) {
+					socketConnector.connect();
+				}
 			}
 		}
 	}
@@ -68,7 +135,13 @@ public abstract class SocketConnection implements Disposable {
 	public final void disconnect() {
 		synchronized (connectionLock) {
 			if (changeConnectionState(SocketConnectionState.Disconnecting)) {
-				socketConnector.disconnect();
+				disposeStandbyConnector();
+				
+				if (socketConnector != null) {
+					socketConnector.disconnect();
+				} else {
+					changeConnectionState(SocketConnectionState.Disconnected);
+				}
 			}
 		}
 	}
@@ -92,13 +165,22 @@ public abstract class SocketConnection implements Disposable {
 			final SocketSubscription subscription = new SocketSubscription(socketChannel, listener);
 			
 			if (!subscriptions.containsKey(subscription)) {
-				final Disposable connectorBinding = socketConnector.registerSocketEventListener(socketChannel, listener);
+				/* Until the server address is resolved, the listener is bound when the connector is created. */
+				final Disposable connectorBinding;
+				
+				if (socketConnector != null) {
+					connectorBinding = socketConnector.registerSocketEventListener(socketChannel, listener);
+				} else {
+					connectorBinding = null;
+				}
 				
 				final Disposable compositeBinding = new Disposable() {
 					@Override
 					public void dispose() {
 						synchronized(connectionLock) {
-							connectorBinding.dispose();
+							if (connectorBinding != null) {
+								connectorBinding.dispose();
+							}
 						
 							subscriptions.remove(subscription);
 						}
@@ -115,19 +197,140 @@ public abstract class SocketConnection implements Disposable {
 	}
 	
 	protected final void sendToServer(final SocketChannel socketChannel, final JSONObject data) {
-		synchronized (connectionLock) {
-			socketConnector.sendToServer(socketChannel, data);
-		}
+		enqueue(new OutboundMessage(socketChannel, data, null));
 	}
 	
 	protected final void requestFromServer(final SocketChannel socketChannel, final JSONObject data, final Action<JSONObject> callback) {
-		synchronized (connectionLock) {
-			socketConnector.requestFromServer(socketChannel, data, callback);
+		requestFromServer(socketChannel, data, callback, null);
+	}
+	
+	protected final void requestFromServer(final SocketChannel socketChannel, final JSONObject data, final Action<JSONObject> callback, final Action<RequestFailure> failureCallback) {
+		if (socketChannel == null) {
+			throw new IllegalArgumentException("The \"socketChannel\" argument is required.");
+		}
+		
+		if (callback == null) {
+			throw new IllegalArgumentException("The \"callback\" argument is required.");
+		}
+		
+		final RequestCorrelator.PendingRequest request = requestCorrelator.register(socketChannel, data, callback, failureCallback);
+		
+		if (!enqueue(new OutboundMessage(socketChannel, data, request))) {
+			requestCorrelator.fail(request, RequestFailure.NotConnected);
+		}
+	}
+	
+	public final int getPendingRequestCount() {
+		return requestCorrelator.getPendingCount();
+	}
+	
+	public final long getFailedRequestCount() {
+		return requestCorrelator.getFailedCount();
+	}
+	
+	public final long getRetriedRequestCount() {
+		return requestCorrelator.getRetriedCount();
+	}
+	
+	public final boolean getIsHotStandby() {
+		return hotStandby;
+	}
+	
+	public final boolean getIsStandbyConnected() {
+		final SocketConnector connector = standbyConnector;
+		
+		return connector != null && connector.getIsConnected();
+	}
+	
+	public final long getFailoverCount() {
+		return failoverCounter.getCount();
+	}
+	
+	public final MetricsRegistry getMetrics() {
+		return metrics;
+	}
+	
+	public final SocketConnectionState getConnectionState() {
+		return connectionState;
+	}
+	
+	public final int getOutboundQueueSize() {
+		return outboundQueueSize.get();
+	}
+	
+	private boolean enqueue(final OutboundMessage message) {
+		final SocketConnectionState state = connectionState;
+		
+		final boolean returnVal;
+		
+		if (state != SocketConnectionState.Connecting && state != SocketConnectionState.Connected) {
+			droppedCounter.increment();
+			
+			logger.debug("Dropped message to {} because the connection state is {}.", message.getSocketChannel(), state);
+			
+			returnVal = false;
+		} else if (outboundQueueSize.incrementAndGet() > MAXIMUM_QUEUED_MESSAGES) {
+			outboundQueueSize.decrementAndGet();
+			
+			droppedCounter.increment();
+			
+			logger.warn("Dropped message to {} because the outbound queue is full.", message.getSocketChannel());
+			
+			returnVal = false;
+		} else {
+			message.setEpoch(RequestCorrelator.QUEUED);
+			
+			outboundQueue.offer(message);
+			
+			drainOutboundQueue();
+			
+			returnVal = true;
+		}
+		
+		return returnVal;
+	}
+	
+	private void drainOutboundQueue() {
+		SocketConnector connector;
+		
+		while (!outboundQueue.isEmpty() && (connector = socketConnector) != null && connector.getIsConnected() && outboundDraining.compareAndSet(false, true)) {
+			try {
+				OutboundMessage message;
+				
+				while (connector.getIsConnected() && (message = outboundQueue.peek()) != null) {
+					if (message.getIsCurrent()) {
+						message.send(connector, connectionEpoch);
+					}
+					
+					outboundQueue.poll();
+					outboundQueueSize.decrementAndGet();
+				}
+			} catch (IllegalStateException e) {
+				logger.debug("Suspended outbound message delivery, the socket connector was replaced.");
+			} finally {
+				outboundDraining.set(false);
+			}
+		}
+	}
+	
+	private void clearOutboundQueue() {
+		OutboundMessage message;
+		
+		while ((message = outboundQueue.poll()) != null) {
+			outboundQueueSize.decrementAndGet();
+			
+			message.setEpoch(RequestCorrelator.LOST);
+			
+			droppedCounter.increment();
+			
+			logger.debug("Dropped message to {} because the connection was closed.", message.getSocketChannel());
 		}
 	}
     
 	private boolean changeConnectionState(final SocketConnectionState targetState) {
-		boolean returnVal = connectionState != targetState && connectionState.canTransitionTo(targetState);
+		final SocketConnectionState previousState = connectionState;
+		
+		boolean returnVal = !disposed && previousState != targetState && previousState.canTransitionTo(targetState);
 		
 		if (returnVal) {
 			logger.debug("Changing socket connection state to {}.", targetState);
@@ -136,68 +339,56 @@ public abstract class SocketConnection implements Disposable {
 			
 			connectionStateChanged.fire(targetState);
 			
+			if (targetState == SocketConnectionState.Connected) {
+				connectionEpoch++;
+				
+				drainOutboundQueue();
+				recoverRequests();
+				
+				if (hotStandby && standbyConnector == null) {
+					createStandbyConnector();
+				}
+			} else if (targetState == SocketConnectionState.Disconnected) {
+				clearOutboundQueue();
+				
+				if (previousState == SocketConnectionState.Disconnecting) {
+					requestCorrelator.failAll(RequestFailure.ConnectionLost);
+				}
+			}
+			
 			logger.debug("Changed socket connection state to {}", targetState);
 		}
 		
 		return returnVal;
 	}
 
-	private void createSocketConnector() {
+	/* Resolves the server address without blocking; the connector is installed when resolution completes. A rebuild refreshes the address, since the cached server has just failed. */
+	private void createSocketConnector(final boolean refresh) {
+		final int generation = connectorGeneration.incrementAndGet();
+		
+		ServerAddressResolver.getShared().resolve(host, port, secure, refresh, new Action<String>() {
+			@Override
+			public void execute(final String address) {
+				installSocketConnector(generation, address);
+			}
+		});
+	}
+	
+	private void installSocketConnector(final int generation, final String address) {
 		synchronized (connectionLock) {
+			if (disposed || generation != connectorGeneration.get()) {
+				logger.debug("Discarded server address {}, the socket connector was superseded.", address);
+				
+				return;
+			}
+			
 			if (socketConnector != null) {
 				socketConnector.dispose();
 			}
 			
-			socketConnector = new SocketConnector(host, port, secure);
+			socketConnector = createObservedSocketConnector(address);
 			
-			final Action<String> socketStateChangedObserver = new Action<String>() {
-				@Override
-				public void execute(String socketState) {
-					synchronized (connectionLock) {
-						switch (socketState) {
-							case Socket.EVENT_CONNECT: {
-								changeConnectionState(SocketConnectionState.Connected);
-								break;
-							}
-							case Socket.EVENT_RECONNECTING: {
-								changeConnectionState(SocketConnectionState.Connecting);
-								break;
-							}
-							case Socket.EVENT_RECONNECT: {
-								changeConnectionState(SocketConnectionState.Connected);
-								break;
-							}
-							case Socket.EVENT_DISCONNECT: {
-								changeConnectionState(SocketConnectionState.Disconnected);
-								break;
-							}
-							case Socket.EVENT_RECONNECT_FAILED: {
-								logger.warn("{} repeatedly failed to reconnect. Recreating socket connector.", socketConnector);
-								
-								createSocketConnector();
-								
-								break;
-							}
-							default: {
-								logger.warn("Socket connection ignored underlying socket state change {}.", socketState);
-								break;
-							}
-						}
-					}
-				}
-			};
-			
-			socketConnector.registerSocketStateChangedObserver(socketStateChangedObserver);
-			
-			final SocketSubscription[] copies = subscriptions.keySet().toArray(new SocketSubscription[0]);
-			
-			for (int i = 0; i < copies.length; i++) {
-				SocketSubscription subscription = copies[i];
-				
-				subscriptions.get(subscription).dispose();
-				
-				registerSocketEventListener(subscription.getSocketChannel(), subscription.getListener());
-			}
+			rebindSubscriptions();
 			
 			if (connectionState == SocketConnectionState.Connecting || connectionState == SocketConnectionState.Connected) {
 				changeConnectionState(SocketConnectionState.Connecting);
@@ -209,14 +400,244 @@ public abstract class SocketConnection implements Disposable {
 		}
 	}
 	
+	/* The address is queried afresh, so the standby may be connected to a different server. */
+	private void createStandbyConnector() {
+		final int generation = standbyGeneration.incrementAndGet();
+		
+		ServerAddressResolver.getShared().resolve(host, port, secure, true, new Action<String>() {
+			@Override
+			public void execute(final String address) {
+				installStandbyConnector(generation, address);
+			}
+		});
+	}
+	
+	private void installStandbyConnector(final int generation, final String address) {
+		synchronized (connectionLock) {
+			if (disposed || generation != standbyGeneration.get() || (connectionState != SocketConnectionState.Connecting && connectionState != SocketConnectionState.Connected)) {
+				logger.debug("Discarded standby server address {}, the standby connector is no longer required.", address);
+				
+				return;
+			}
+			
+			if (standbyConnector != null) {
+				standbyConnector.dispose();
+			}
+			
+			standbyConnector = createObservedSocketConnector(address);
+			standbyConnector.connect();
+		}
+	}
+	
+	private void disposeStandbyConnector() {
+		standbyGeneration.incrementAndGet();
+		
+		if (standbyConnector != null) {
+			standbyConnector.dispose();
+			
+			standbyConnector = null;
+		}
+	}
+	
+	/* Replaces a primary connector which is not connected with a connected standby (a replacement standby is created once connected). */
+	private boolean promoteStandbyConnector() {
+		final SocketConnector standby = standbyConnector;
+		final SocketConnector primary = socketConnector;
+		
+		final boolean returnVal = standby != null && standby.getIsConnected() && (primary == null || !primary.getIsConnected()) && (connectionState == SocketConnectionState.Connecting || connectionState == SocketConnectionState.Connected);
+		
+		if (returnVal) {
+			logger.warn("Failing over from {} to standby {}.", primary, standby);
+			
+			changeConnectionState(SocketConnectionState.Connecting);
+			
+			connectorGeneration.incrementAndGet();
+			standbyConnector = null;
+			socketConnector = standby;
+			
+			if (primary != null) {
+				primary.dispose();
+			}
+			
+			rebindSubscriptions();
+			
+			failoverCounter.increment();
+			
+			changeConnectionState(SocketConnectionState.Connected);
+		}
+		
+		return returnVal;
+	}
+	
+	private SocketConnector createObservedSocketConnector(final String address) {
+		final SocketConnector returnRef = new SocketConnector(host, port, secure, address, metrics);
+		
+		returnRef.registerSocketStateChangedObserver(new Action<String>() {
+			@Override
+			public void execute(String socketState) {
+				synchronized (connectionLock) {
+					if (returnRef == socketConnector) {
+						onPrimarySocketStateChanged(socketState);
+					} else if (returnRef == standbyConnector) {
+						onStandbySocketStateChanged(socketState);
+					}
+				}
+			}
+		});
+		
+		return returnRef;
+	}
+	
+	private void onPrimarySocketStateChanged(final String socketState) {
+		switch (socketState) {
+			case Socket.EVENT_CONNECT: {
+				changeConnectionState(SocketConnectionState.Connected);
+				break;
+			}
+			case Socket.EVENT_RECONNECTING: {
+				changeConnectionState(SocketConnectionState.Connecting);
+				break;
+			}
+			case Socket.EVENT_RECONNECT: {
+				reconnectCounter.increment();
+				
+				changeConnectionState(SocketConnectionState.Connected);
+				break;
+			}
+			case Socket.EVENT_DISCONNECT: {
+				if (!promoteStandbyConnector()) {
+					changeConnectionState(SocketConnectionState.Disconnected);
+				}
+				
+				break;
+			}
+			case Socket.EVENT_RECONNECT_FAILED: {
+				if (!promoteStandbyConnector()) {
+					logger.warn("{} repeatedly failed to reconnect. Recreating socket connector.", socketConnector);
+					
+					rebuildCounter.increment();
+					
+					createSocketConnector(true);
+				}
+				
+				break;
+			}
+			default: {
+				logger.warn("Socket connection ignored underlying socket state change {}.", socketState);
+				break;
+			}
+		}
+	}
+	
+	private void onStandbySocketStateChanged(final String socketState) {
+		switch (socketState) {
+			case Socket.EVENT_CONNECT:
+			case Socket.EVENT_RECONNECT: {
+				promoteStandbyConnector();
+				break;
+			}
+			case Socket.EVENT_RECONNECT_FAILED: {
+				logger.warn("{} repeatedly failed to reconnect. Recreating standby connector.", standbyConnector);
+				
+				createStandbyConnector();
+				
+				break;
+			}
+			default: {
+				break;
+			}
+		}
+	}
+	
+	private void rebindSubscriptions() {
+		final SocketSubscription[] copies = subscriptions.keySet().toArray(new SocketSubscription[0]);
+		
+		for (int i = 0; i < copies.length; i++) {
+			SocketSubscription subscription = copies[i];
+			
+			subscriptions.get(subscription).dispose();
+			
+			registerSocketEventListener(subscription.getSocketChannel(), subscription.getListener());
+		}
+	}
+	
+	private void recoverRequests() {
+		final List<RequestCorrelator.PendingRequest> requests = requestCorrelator.recover(connectionEpoch);
+		
+		for (int i = 0; i < requests.size(); i++) {
+			final RequestCorrelator.PendingRequest request = requests.get(i);
+			
+			logger.debug("Retrying request {} to {}, the connection was lost.", request.getRequestId(), request.getSocketChannel());
+			
+			if (!enqueue(new OutboundMessage(request.getSocketChannel(), request.getData(), request))) {
+				requestCorrelator.fail(request, RequestFailure.NotConnected);
+			}
+		}
+	}
+	
 	@Override
 	public void dispose() {
-		return;
+		connectorGeneration.incrementAndGet();
+		
+		synchronized (connectionLock) {
+			changeConnectionState(SocketConnectionState.Disconnected);
+			
+			disposed = true;
+			
+			disposeStandbyConnector();
+			
+			if (socketConnector != null) {
+				socketConnector.dispose();
+				
+				socketConnector = null;
+			}
+		}
+		
+		requestCorrelator.failAll(RequestFailure.ConnectionLost);
+		
+		metrics.dispose();
 	}
 	
 	@Override
 	public String toString() {
-		return String.format("[SocketConnection (host: %s, port: %s, secure: %s)]", host, port, secure);
+		return String.format("[SocketConnection (host: %s, port: %s, secure: %s, hotStandby: %s)]", host, port, secure, hotStandby);
+	}
+	
+	private final class OutboundMessage {
+		private final SocketChannel socketChannel;
+		private final JSONObject data;
+		private final RequestCorrelator.PendingRequest request;
+		
+		public OutboundMessage(final SocketChannel socketChannel, final JSONObject data, final RequestCorrelator.PendingRequest request) {
+			this.socketChannel = socketChannel;
+			this.data = data;
+			this.request = request;
+		}
+		
+		public SocketChannel getSocketChannel() {
+			return socketChannel;
+		}
+		
+		/* A request which has already completed or failed is not sent. */
+		public boolean getIsCurrent() {
+			return request == null || requestCorrelator.getIsPending(request);
+		}
+		
+		public void setEpoch(final long epoch) {
+			if (request != null) {
+				request.setEpoch(epoch);
+			}
+		}
+		
+		public void send(final SocketConnector connector, final long epoch) {
+			if (request != null) {
+				request.setEpoch(epoch);
+				
+				connector.requestFromServer(socketChannel, request.getRequestId(), data);
+			} else {
+				connector.sendToServer(socketChannel, data);
+			}
+		}
 	}
 	
 	private final class SocketSubscription {
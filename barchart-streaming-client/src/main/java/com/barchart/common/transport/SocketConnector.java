@@ -1,15 +1,8 @@
 package com.barchart.common.transport;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
 import java.net.URISyntaxException;
-import java.net.URL;
-import java.net.URLConnection;
-import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -21,10 +14,15 @@ import org.slf4j.LoggerFactory;
 import com.barchart.common.Action;
 import com.barchart.common.Disposable;
 import com.barchart.common.messaging.Event;
+import com.barchart.common.metrics.Counter;
+import com.barchart.common.metrics.MetricsRegistry;
 
 import io.socket.client.IO;
+import io.socket.client.Manager;
 import io.socket.client.Socket;
 import io.socket.emitter.Emitter;
+import io.socket.engineio.client.Transport;
+import io.socket.engineio.parser.Packet;
 
 public class SocketConnector implements Disposable {
 	private static final Logger logger;
@@ -42,7 +40,10 @@ public class SocketConnector implements Disposable {
 
 	private final AtomicInteger messageSequencer;
 	
-	private final ConcurrentMap<String, Action<JSONObject>> requestMap;
+	private final MetricsRegistry metrics;
+	private final Counter droppedCounter;
+	private final Counter receivedBytesCounter;
+	private final List<ChannelBytes> channelBytes;
 	
 	static {
 		logger = LoggerFactory.getLogger(SocketConnector.class);
@@ -51,6 +52,14 @@ public class SocketConnector implements Disposable {
 	}
 	
 	public SocketConnector(final String host, final int port, final boolean secure) {
+		this(host, port, secure, ServerAddressResolver.getShared().resolve(host, port, secure));
+	}
+	
+	public SocketConnector(final String host, final int port, final boolean secure, final String address) {
+		this(host, port, secure, address, new MetricsRegistry());
+	}
+	
+	public SocketConnector(final String host, final int port, final boolean secure, final String address, final MetricsRegistry metrics) {
 		if (host == null) {
 			throw new IllegalArgumentException("The \"host\" argument is required.");
 		}
@@ -59,6 +68,14 @@ public class SocketConnector implements Disposable {
 			throw new IllegalArgumentException("The \"port\" is not a valid TCP port number.");
 		}
 		
+		if (address == null) {
+			throw new IllegalArgumentException("The \"address\" argument is required.");
+		}
+		
+		if (metrics == null) {
+			throw new IllegalArgumentException("The \"metrics\" argument is required.");
+		}
+		
 		this.id = socketCounter.incrementAndGet();
 		
 		this.host = host;
@@ -69,12 +86,13 @@ public class SocketConnector implements Disposable {
 		
 		logger.info("Socket connector created using (host: {}, port: {}, secure: {}).", host, port, secure);
 		
-		final String serverUri = getServerUri(host, port, secure);
+		final String serverUri = String.format("%s://%s:%s", secure ? "https" : "http", address, port);
 		
 		logger.info("Attempting to open socket.io connection to {}.", serverUri);
 		
 		final IO.Options options = new IO.Options();
 		options.reconnectionAttempts = 5;
+		options.forceNew = true;
 		
 		try {	
 			socket = IO.socket(serverUri, options);
@@ -87,11 +105,14 @@ public class SocketConnector implements Disposable {
 		this.socket = socket;
 		this.messageSequencer = new AtomicInteger(0);
 		
+		this.metrics = metrics;
+		this.droppedCounter = metrics.getCounter("outbound.dropped");
+		this.receivedBytesCounter = metrics.getCounter("bytes.received");
+		this.channelBytes = new CopyOnWriteArrayList<ChannelBytes>();
+		
 		this.socketStateChanged = new Event<String>("socketStateChanged");
 		this.socketDisposed = new AtomicBoolean(false);
 		
-		this.requestMap = new ConcurrentHashMap<String, Action<JSONObject>>(16, 0.75f, 2);
-		
 		registerSocketEventListener(Socket.EVENT_CONNECT, new Emitter.Listener() {
 			@Override
 			public void call(Object... args) {
@@ -134,28 +155,32 @@ public class SocketConnector implements Disposable {
 			}
 		});
 		
-		registerSocketEventListener(BasicSocketChannel.Response, new Emitter.Listener() {
-			@Override
-			public void call(Object... args) {
-				final JSONObject data = (JSONObject)args[0];
-				
-				final String requestId = data.optString("requestId");
-
-				Action<JSONObject> responseHandler = requestMap.remove(requestId);
-				
-				if (responseHandler != null) {
-					responseHandler.execute(data.optJSONObject("response"));
-				} else {
-					logger.warn("Received response without corresponding request {}.", requestId);
+		/* Listeners receive parsed JSON, so message sizes are taken from the transport's packets. */
+		if (socket != null) {
+			final Emitter.Listener packetListener = new Emitter.Listener() {
+				@Override
+				public void call(Object... args) {
+					onPacket((Packet<?>)args[0]);
 				}
-			}
-		});
+			};
+			
+			socket.io().on(Manager.EVENT_TRANSPORT, new Emitter.Listener() {
+				@Override
+				public void call(Object... args) {
+					((Transport)args[0]).on(Transport.EVENT_PACKET, packetListener);
+				}
+			});
+		}
 	}
 	
 	public boolean getIsValid() {
 		return socket != null;
 	}
 	
+	public boolean getIsConnected() {
+		return socket != null && !socketDisposed.get() && socket.connected();
+	}
+	
 	public final void connect() {
 		if (socketDisposed.get()) {
 			throw new IllegalStateException("Unable to connect, the socket has been disposed.");
@@ -191,10 +216,20 @@ public class SocketConnector implements Disposable {
 		
 		logger.debug("Registering listener for {}.", socketChannel);
 		
-		return registerSocketEventListener(socketChannel.getChannelName(), listener);
+		final String socketChannelName = socketChannel.getChannelName();
+		
+		if (!channelBytes.contains(new ChannelBytes(socketChannelName, null))) {
+			channelBytes.add(new ChannelBytes(socketChannelName, metrics.getCounter("bytes." + socketChannelName)));
+		}
+		
+		return registerSocketEventListener(socketChannelName, listener, metrics.getCounter("messages." + socketChannelName));
 	}
 	
 	public Disposable registerSocketEventListener(final String socketChannelName, final Emitter.Listener listener) {
+		return registerSocketEventListener(socketChannelName, listener, null);
+	}
+	
+	private Disposable registerSocketEventListener(final String socketChannelName, final Emitter.Listener listener, final Counter messageCounter) {
 		if (socketChannelName == null) {
 			throw new IllegalArgumentException("The \"socketChannelName\" argument is required.");
 		}
@@ -212,6 +247,10 @@ public class SocketConnector implements Disposable {
 			public void call(Object... args) {
 				int messageSequence = messageSequencer.incrementAndGet();
 				
+				if (messageCounter != null) {
+					messageCounter.increment();
+				}
+				
 		    	logger.debug("Received message {} on {}", messageSequence, socketChannelName);
 		    	
 		    	if (logger.isTraceEnabled() && args.length > 0 && args[0] instanceof JSONObject) {
@@ -272,24 +311,25 @@ public class SocketConnector implements Disposable {
 	        
 	        logger.debug("Sent message {} to {}.", messageSequence, socketChannel);
 		} else {
+			droppedCounter.increment();
+			
 			logger.debug("Dropped message {} to {} because socket was not connected.", messageSequence, socketChannel);
 		}
 	}
 	
-	public final void requestFromServer(final SocketChannel socketChannel, final JSONObject data, final Action<JSONObject> callback) {
+	public final void requestFromServer(final SocketChannel socketChannel, final String requestId, final JSONObject data) {
 		if (socketChannel == null) {
 			throw new IllegalArgumentException("The \"socketChannel\" argument is required.");
 		}
 		
+		if (requestId == null) {
+			throw new IllegalArgumentException("The \"requestId\" argument is required.");
+		}
+		
 		if (data == null) {
 			throw new IllegalArgumentException("The \"data\" argument is required.");
 		}
 		
-		final UUID requestUuid = UUID.randomUUID();
-		final String requestId = requestUuid.toString();
-		
-		requestMap.put(requestId, callback);
-		
 		JSONObject envelope = new JSONObject();
 		
 		try {
@@ -304,6 +344,50 @@ public class SocketConnector implements Disposable {
 		sendToServer(socketChannel, envelope);
 	}
 	
+	private void onPacket(final Packet<?> packet) {
+		if (packet.data instanceof String) {
+			final String data = (String)packet.data;
+			final int length = getEncodedLength(data);
+			
+			receivedBytesCounter.add(length);
+			
+			for (int i = 0; i < channelBytes.size(); i++) {
+				final ChannelBytes candidate = channelBytes.get(i);
+				
+				if (data.startsWith(candidate.getPrefix())) {
+					candidate.getCounter().add(length);
+					
+					break;
+				}
+			}
+		} else if (packet.data instanceof byte[]) {
+			receivedBytesCounter.add(((byte[])packet.data).length);
+		}
+	}
+	
+	/* The length of the text encoded as UTF-8 (as it was on the wire), without encoding it. */
+	private static int getEncodedLength(final String text) {
+		final int length = text.length();
+		
+		int returnVal = length;
+		
+		for (int i = 0; i < length; i++) {
+			final char c = text.charAt(i);
+			
+			if (c >= 0x800) {
+				returnVal += 2;
+				
+				if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1))) {
+					i++;
+				}
+			} else if (c >= 0x80) {
+				returnVal += 1;
+			}
+		}
+		
+		return returnVal;
+	}
+	
 	private void onSocketStateChanged(final String socketState) {
 		if (socketDisposed.get()) {
 			return;
@@ -330,50 +414,33 @@ public class SocketConnector implements Disposable {
 		return String.format("[SocketConnector (id: %s, host: %s, port: %s, secure: %s)]", id, host, port, secure);
 	}
 	
-	private static final String getServerUri(final String host, final int port, final boolean secure) {
-		final String protocol;
+	/* A socket.io event packet begins with its type (2) and the event name. */
+	private static final class ChannelBytes {
+		private final String prefix;
+		private final Counter counter;
+		
+		public ChannelBytes(final String socketChannelName, final Counter counter) {
+			this.prefix = String.format("2[\"%s\"", socketChannelName);
+			this.counter = counter;
+		}
 		
-		String hostToUse = host;
+		public String getPrefix() {
+			return prefix;
+		}
 		
-		if (secure) {
-			protocol = "https";
-		} else {
-			protocol = "http";
-			
-			if (!host.equals("localhost")) {
-				BufferedReader bufferedReader = null;
-				
-				try {
-					final URL url = new URL(String.format("http://%s:%s/ip", host, port));
-					final URLConnection urlConnection = url.openConnection();
-					final HttpURLConnection connection = (HttpURLConnection)urlConnection;
-					
-					connection.setRequestMethod("GET");
-					connection.setReadTimeout(30000);
-
-					connection.connect();
-					
-					final InputStreamReader inputStramReader = new InputStreamReader(connection.getInputStream());
-					bufferedReader = new BufferedReader(inputStramReader);
-					
-					hostToUse = bufferedReader.readLine();
-				} catch (Exception e) {
-					logger.error("Unable query server for IP address.", e);
-					
-					hostToUse = "invalid-host";
-				} finally {
-					if (bufferedReader != null) {
-						try {
-							bufferedReader.close();
-						} catch (IOException e) {
-							logger.error("Unable to close BufferedReader", e);
-						}
-					}
-				}
-			}
+		public Counter getCounter() {
+			return counter;
+		}
+		
+		@Override
+		public int hashCode() {
+			return prefix.hashCode();
 		}
 		
-		return String.format("%s://%s:%s", protocol, hostToUse, port);
+		@Override
+		public boolean equals(Object candidate) {
+			return candidate instanceof ChannelBytes && prefix.equals(((ChannelBytes)candidate).getPrefix());
+		}
 	}
 	
 	private static final String stringify(final JSONObject data) {
@@ -0,0 +1,373 @@
+package com.barchart.streaming.connection;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.barchart.common.Action;
+import com.barchart.common.Disposable;
+import com.barchart.common.messaging.Event;
+import com.barchart.streaming.data.QuoteChange;
+
+/*
+ * Merges the quote changes of two connections (legs), normally to different
+ * hosts, delivering whichever copy of each update arrives first. Updates are
+ * ordered by the quote's sequence number: the first copy of a sequence is
+ * delivered and the other leg's copy (or any older sequence) is dropped.
+ *
+ * For each leg, the number of updates it delivered first is counted, along
+ * with how far it led the other leg (measured when the other leg's copy of a
+ * recent sequence arrives).
+ *
+ * A symbol's arbitration restarts when its sequence moves far backwards (e.g.
+ * after a server restart renumbers it): on a snapshot more than a window
+ * behind, or on any update more than RESET_DISTANCE behind.
+ *
+ * Each leg must have its own quote store; the legs cannot share a QuoteTable
+ * (which expects writes from a single thread).
+ *
+ * Disposing the arbitrating connection disposes both legs.
+ */
+public final class ArbitratingMarketSocketConnection implements Disposable {
+	private static final int LEGS = 2;
+	
+	/* The number of recent sequences per symbol retained to measure the lead. */
+	private static final int WINDOW = 16;
+	
+	/* Sequences this far behind the last delivered are taken as renumbering, not as stale copies. */
+	private static final long RESET_DISTANCE = 65536;
+	
+	private final MarketSocketConnection[] legs;
+	private final List<Action<QuoteChange>> legObservers;
+	
+	private final ConcurrentMap<String, Arbiter> arbiters;
+	private final Object subscriptionLock;
+	
+	private final AtomicLongArray winCounts;
+	private final AtomicLongArray leadCounts;
+	private final AtomicLongArray leadTotals;
+	private final AtomicLongArray leadMaximums;
+	
+	private final AtomicLong duplicateCount;
+	private final AtomicLong staleCount;
+	private final AtomicLong resetCount;
+	
+	public ArbitratingMarketSocketConnection(final String primaryHost, final String secondaryHost, final int port, final boolean secure, final MarketSocketConnectionOptions options) {
+		this(new MarketSocketConnection(primaryHost, port, secure, getLegOptions(options)), new MarketSocketConnection(secondaryHost, port, secure, options));
+	}
+	
+	public ArbitratingMarketSocketConnection(final MarketSocketConnection primary, final MarketSocketConnection secondary) {
+		if (primary == null) {
+			throw new IllegalArgumentException("The \"primary\" argument is required.");
+		}
+		
+		if (secondary == null) {
+			throw new IllegalArgumentException("The \"secondary\" argument is required.");
+		}
+		
+		if (primary.getQuoteTable() != null && primary.getQuoteTable() == secondary.getQuoteTable()) {
+			throw new IllegalArgumentException("The \"primary\" and \"secondary\" arguments cannot share a quote table.");
+		}
+		
+		this.legs = new MarketSocketConnection[] { primary, secondary };
+		this.legObservers = new ArrayList<Action<QuoteChange>>(LEGS);
+		
+		for (int i = 0; i < LEGS; i++) {
+			final int leg = i;
+			
+			legObservers.add(new Action<QuoteChange>() {
+				@Override
+				public void execute(final QuoteChange change) {
+					final Arbiter arbiter = arbiters.get(change.getQuote().getSymbol());
+					
+					if (arbiter != null) {
+						arbiter.arbitrate(leg, change);
+					}
+				}
+			});
+		}
+		
+		this.arbiters = new ConcurrentHashMap<String, Arbiter>(64, 0.75f, 4);
+		this.subscriptionLock = new Object();
+		
+		this.winCounts = new AtomicLongArray(LEGS);
+		this.leadCounts = new AtomicLongArray(LEGS);
+		this.leadTotals = new AtomicLongArray(LEGS);
+		this.leadMaximums = new AtomicLongArray(LEGS);
+		
+		this.duplicateCount = new AtomicLong(0L);
+		this.staleCount = new AtomicLong(0L);
+		this.resetCount = new AtomicLong(0L);
+	}
+	
+	public void connect() {
+		for (int i = 0; i < LEGS; i++) {
+			legs[i].connect();
+		}
+	}
+	
+	public void disconnect() {
+		for (int i = 0; i < LEGS; i++) {
+			legs[i].disconnect();
+		}
+	}
+	
+	public Disposable subscribeToQuoteChanges(final String symbol, final Action<QuoteChange> observer) {
+		if (symbol == null) {
+			throw new IllegalArgumentException("The \"symbol\" argument is required.");
+		}
+		
+		return subscribeToQuoteChanges(Collections.singleton(symbol), observer);
+	}
+	
+	public Disposable subscribeToQuoteChanges(final Collection<String> symbols, final Action<QuoteChange> observer) {
+		final String[] copies = getSymbolArray(symbols, observer);
+		
+		synchronized (subscriptionLock) {
+			final List<String> added = new ArrayList<String>(copies.length);
+			
+			for (int i = 0; i < copies.length; i++) {
+				Arbiter arbiter = arbiters.get(copies[i]);
+				
+				if (arbiter == null) {
+					arbiters.put(copies[i], arbiter = new Arbiter(copies[i]));
+					
+					added.add(copies[i]);
+				} else {
+					legs[arbiter.getLeader()].subscribeToQuoteChanges(copies[i], observer).dispose();
+				}
+				
+				arbiter.getEvent().register(observer);
+			}
+			
+			if (!added.isEmpty()) {
+				for (int i = 0; i < LEGS; i++) {
+					legs[i].subscribeToQuoteChanges(added, legObservers.get(i));
+				}
+			}
+		}
+		
+		return new Disposable() {
+			@Override
+			public void dispose() {
+				unsubscribe(copies, observer);
+			}
+		};
+	}
+	
+	public void unsubscribeFromQuoteChanges(final String symbol, final Action<QuoteChange> observer) {
+		if (symbol == null) {
+			throw new IllegalArgumentException("The \"symbol\" argument is required.");
+		}
+		
+		unsubscribeFromQuoteChanges(Collections.singleton(symbol), observer);
+	}
+	
+	public void unsubscribeFromQuoteChanges(final Collection<String> symbols, final Action<QuoteChange> observer) {
+		unsubscribe(getSymbolArray(symbols, observer), observer);
+	}
+	
+	private void unsubscribe(final String[] symbols, final Action<QuoteChange> observer) {
+		synchronized (subscriptionLock) {
+			final List<String> removed = new ArrayList<String>(symbols.length);
+			
+			for (int i = 0; i < symbols.length; i++) {
+				final Arbiter arbiter = arbiters.get(symbols[i]);
+				
+				if (arbiter != null) {
+					arbiter.getEvent().unregister(observer);
+					
+					if (arbiter.getEvent().getIsEmpty()) {
+						arbiters.remove(symbols[i]);
+						
+						removed.add(symbols[i]);
+					}
+				}
+			}
+			
+			if (!removed.isEmpty()) {
+				for (int i = 0; i < LEGS; i++) {
+					legs[i].unsubscribeFromQuoteChanges(removed, legObservers.get(i));
+				}
+			}
+		}
+	}
+	
+	public MarketSocketConnection getLeg(final int leg) {
+		return legs[leg];
+	}
+	
+	/* The number of updates the leg delivered before the other leg. */
+	public long getWinCount(final int leg) {
+		return winCounts.get(leg);
+	}
+	
+	/* The number of updates for which the leg's lead over the other leg was measured. */
+	public long getLeadCount(final int leg) {
+		return leadCounts.get(leg);
+	}
+	
+	/* Nanoseconds. */
+	public long getAverageLead(final int leg) {
+		final long count = leadCounts.get(leg);
+		
+		return count == 0 ? 0 : leadTotals.get(leg) / count;
+	}
+	
+	/* Nanoseconds. */
+	public long getMaximumLead(final int leg) {
+		return leadMaximums.get(leg);
+	}
+	
+	/* Copies of an update which had already been delivered from the other leg. */
+	public long getDuplicateCount() {
+		return duplicateCount.get();
+	}
+	
+	/* Updates older than one already delivered, which were not copies of a recent sequence. */
+	public long getStaleCount() {
+		return staleCount.get();
+	}
+	
+	/* Times a symbol's arbitration restarted because its sequence moved far backwards. */
+	public long getResetCount() {
+		return resetCount.get();
+	}
+	
+	private void recordLead(final int leg, final long lead) {
+		leadCounts.incrementAndGet(leg);
+		leadTotals.addAndGet(leg, lead);
+		
+		long maximum;
+		
+		while (lead > (maximum = leadMaximums.get(leg)) && !leadMaximums.compareAndSet(leg, maximum, lead)) {
+			continue;
+		}
+	}
+	
+	/* Both legs are built from the same options, so they cannot include a (single-writer) quote table. */
+	private static MarketSocketConnectionOptions getLegOptions(final MarketSocketConnectionOptions options) {
+		if (options == null) {
+			throw new IllegalArgumentException("The \"options\" argument is required.");
+		}
+		
+		if (options.getQuoteTable() != null) {
+			throw new IllegalArgumentException("The \"options\" argument cannot include a quote table, since each leg would write to it.");
+		}
+		
+		return options;
+	}
+	
+	private static String[] getSymbolArray(final Collection<String> symbols, final Action<QuoteChange> observer) {
+		if (symbols == null) {
+			throw new IllegalArgumentException("The \"symbols\" argument is required.");
+		}
+		
+		if (observer == null) {
+			throw new IllegalArgumentException("The \"observer\" argument is required.");
+		}
+		
+		final String[] returnRef = new LinkedHashSet<String>(symbols).toArray(new String[0]);
+		
+		if (Arrays.asList(returnRef).contains(null)) {
+			throw new IllegalArgumentException("The \"symbols\" argument cannot contain null.");
+		}
+		
+		return returnRef;
+	}
+	
+	@Override
+	public void dispose() {
+		for (int i = 0; i < LEGS; i++) {
+			legs[i].dispose();
+		}
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("[ArbitratingMarketSocketConnection (primary: %s, secondary: %s)]", legs[0], legs[1]);
+	}
+	
+	private final class Arbiter {
+		private final Event<QuoteChange> event;
+		
+		private long sequence;
+		private int leader;
+		
+		private final long[] sequences;
+		private final long[] arrivals;
+		private final int[] winners;
+		
+		public Arbiter(final String symbol) {
+			this.event = new Event<QuoteChange>(String.format("%s arbitrated quoteChanged", symbol));
+			
+			this.sequence = Long.MIN_VALUE;
+			this.leader = 0;
+			
+			this.sequences = new long[WINDOW];
+			this.arrivals = new long[WINDOW];
+			this.winners = new int[WINDOW];
+			
+			Arrays.fill(sequences, Long.MIN_VALUE);
+		}
+		
+		public Event<QuoteChange> getEvent() {
+			return event;
+		}
+		
+		public synchronized int getLeader() {
+			return leader;
+		}
+		
+		public synchronized void arbitrate(final int leg, final QuoteChange change) {
+			final Integer value = change.getQuote().getSequence();
+			
+			if (value == null) {
+				if (leg == leader) {
+					event.fire(change);
+				}
+				
+				return;
+			}
+			
+			final long candidate = value.longValue();
+			final int slot = (int)(candidate & (WINDOW - 1));
+			
+			if (sequence != Long.MIN_VALUE && (candidate < sequence - RESET_DISTANCE || (change.getIsSnapshot() && candidate < sequence - WINDOW))) {
+				sequence = Long.MIN_VALUE;
+				
+				Arrays.fill(sequences, Long.MIN_VALUE);
+				
+				resetCount.incrementAndGet();
+			}
+			
+			if (candidate > sequence) {
+				sequence = candidate;
+				leader = leg;
+				
+				sequences[slot] = candidate;
+				arrivals[slot] = System.nanoTime();
+				winners[slot] = leg;
+				
+				winCounts.incrementAndGet(leg);
+				
+				event.fire(change);
+			} else if (sequences[slot] == candidate && winners[slot] != leg) {
+				sequences[slot] = Long.MIN_VALUE;
+				
+				duplicateCount.incrementAndGet();
+				
+				recordLead(winners[slot], System.nanoTime() - arrivals[slot]);
+			} else {
+				staleCount.incrementAndGet();
+			}
+		}
+	}
+}
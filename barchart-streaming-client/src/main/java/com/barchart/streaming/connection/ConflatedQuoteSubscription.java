@@ -0,0 +1,179 @@
+package com.barchart.streaming.connection;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.barchart.common.Action;
+import com.barchart.common.Disposable;
+import com.barchart.common.data.Synchronizer;
+import com.barchart.streaming.connection.synchronizers.QuoteCopySynchronizer;
+import com.barchart.streaming.data.BasicMutableQuote;
+import com.barchart.streaming.data.MutableQuote;
+
+/*
+ * Decouples a (potentially slow) quote observer from the feed thread. Each
+ * update is applied to a private copy of the quote; the observer is invoked on
+ * the executor with a single synchronizer reflecting every update received
+ * since it was last invoked. The observer is never invoked concurrently.
+ */
+public final class ConflatedQuoteSubscription implements Disposable {
+	private static final Logger logger;
+	
+	private final String symbol;
+	private final Action<Synchronizer<MutableQuote>> observer;
+	private final Executor executor;
+	
+	private final MutableQuote pending;
+	private final Object lock;
+	
+	private boolean dirty;
+	private boolean scheduled;
+	private boolean disposed;
+	
+	private long updateCount;
+	private long deliveryCount;
+	
+	private final Action<Synchronizer<MutableQuote>> collector;
+	private final Runnable drainer;
+	
+	private Disposable registration;
+	
+	static {
+		logger = LoggerFactory.getLogger(ConflatedQuoteSubscription.class);
+	}
+	
+	ConflatedQuoteSubscription(final String symbol, final Action<Synchronizer<MutableQuote>> observer, final Executor executor) {
+		this.symbol = symbol;
+		this.observer = observer;
+		this.executor = executor;
+		
+		this.pending = new BasicMutableQuote(symbol);
+		this.lock = new Object();
+		
+		this.dirty = false;
+		this.scheduled = false;
+		this.disposed = false;
+		
+		this.updateCount = 0;
+		this.deliveryCount = 0;
+		
+		this.collector = new Action<Synchronizer<MutableQuote>>() {
+			@Override
+			public void execute(final Synchronizer<MutableQuote> synchronizer) {
+				collect(synchronizer);
+			}
+		};
+		
+		this.drainer = new Runnable() {
+			@Override
+			public void run() {
+				drain();
+			}
+		};
+	}
+	
+	Action<Synchronizer<MutableQuote>> getCollector() {
+		return collector;
+	}
+	
+	void setRegistration(final Disposable registration) {
+		this.registration = registration;
+	}
+	
+	public String getSymbol() {
+		return symbol;
+	}
+	
+	public long getUpdateCount() {
+		synchronized (lock) {
+			return updateCount;
+		}
+	}
+	
+	public long getDeliveryCount() {
+		synchronized (lock) {
+			return deliveryCount;
+		}
+	}
+	
+	public long getConflatedCount() {
+		synchronized (lock) {
+			return updateCount - deliveryCount - (dirty ? 1 : 0);
+		}
+	}
+	
+	private void collect(final Synchronizer<MutableQuote> synchronizer) {
+		final boolean schedule;
+		
+		synchronized (lock) {
+			if (disposed) {
+				return;
+			}
+			
+			synchronizer.synchronize(pending);
+			
+			updateCount++;
+			dirty = true;
+			
+			schedule = !scheduled;
+			scheduled = true;
+		}
+		
+		if (schedule) {
+			try {
+				executor.execute(drainer);
+			} catch (RejectedExecutionException e) {
+				logger.error(String.format("Unable to schedule delivery of conflated quotes for %s.", symbol), e);
+				
+				synchronized (lock) {
+					scheduled = false;
+				}
+			}
+		}
+	}
+	
+	private void drain() {
+		while (true) {
+			final Synchronizer<MutableQuote> synchronizer;
+			
+			synchronized (lock) {
+				if (!dirty || disposed) {
+					scheduled = false;
+					
+					return;
+				}
+				
+				synchronizer = new QuoteCopySynchronizer(pending);
+				
+				dirty = false;
+				deliveryCount++;
+			}
+			
+			/* A failing observer must not end the drain, or "scheduled" would never be cleared. */
+			try {
+				observer.execute(synchronizer);
+			} catch (Exception e) {
+				logger.error(String.format("A conflated quote observer for %s failed.", symbol), e);
+			}
+		}
+	}
+	
+	@Override
+	public void dispose() {
+		synchronized (lock) {
+			disposed = true;
+		}
+		
+		if (registration != null) {
+			registration.dispose();
+		}
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("[ConflatedQuoteSubscription (symbol: %s)]", symbol);
+	}
+}
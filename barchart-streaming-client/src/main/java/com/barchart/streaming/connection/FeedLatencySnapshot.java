@@ -0,0 +1,39 @@
+package com.barchart.streaming.connection;
+
+import java.util.Collections;
+import java.util.Map;
+
+import com.barchart.common.metrics.Histogram;
+
+/*
+ * Copies of a connection's feed latency histograms (in milliseconds), taken
+ * together. Histograms are keyed by symbol and by exchange.
+ */
+public final class FeedLatencySnapshot {
+	private final Map<String, Histogram> symbolHistograms;
+	private final Map<String, Histogram> exchangeHistograms;
+	private final Histogram timestampHistogram;
+	
+	FeedLatencySnapshot(final Map<String, Histogram> symbolHistograms, final Map<String, Histogram> exchangeHistograms, final Histogram timestampHistogram) {
+		this.symbolHistograms = Collections.unmodifiableMap(symbolHistograms);
+		this.exchangeHistograms = Collections.unmodifiableMap(exchangeHistograms);
+		this.timestampHistogram = timestampHistogram;
+	}
+	
+	public Map<String, Histogram> getSymbolHistograms() {
+		return symbolHistograms;
+	}
+	
+	public Map<String, Histogram> getExchangeHistograms() {
+		return exchangeHistograms;
+	}
+	
+	public Histogram getTimestampHistogram() {
+		return timestampHistogram;
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("[FeedLatencySnapshot (symbols: %s, exchanges: %s)]", symbolHistograms.size(), exchangeHistograms.size());
+	}
+}
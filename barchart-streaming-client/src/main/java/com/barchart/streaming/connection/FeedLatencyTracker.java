@@ -0,0 +1,310 @@
+package com.barchart.streaming.connection;
+
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.barchart.common.data.IndexedArray;
+import com.barchart.common.metrics.Histogram;
+
+/*
+ * Records how old each quote delta is when it is applied (the wall clock time
+ * less the delta's "time" property) per symbol and per exchange, and how old
+ * each server timestamp is when it arrives. Latencies are in milliseconds;
+ * a latency below zero (i.e. clock skew) is recorded as zero.
+ *
+ * A symbol's exchange is known once its profile arrives; until then, its
+ * deltas are only recorded for the symbol. Times without a zone designator
+ * are read in the configured time zone. Recording does not allocate, except
+ * when the first delta (or profile) for a symbol or exchange arrives.
+ */
+final class FeedLatencyTracker {
+	/* Milliseconds, up to about 9 hours, to within about 6 percent. */
+	private static final long HIGHEST_TRACKABLE_VALUE = 1L << 25;
+	private static final int PRECISION = 5;
+	
+	static final long INVALID_TIME = Long.MIN_VALUE;
+	
+	private final TimeZone timeZone;
+	
+	private final IndexedArray<SymbolLatency> symbolLatencies;
+	private final ConcurrentMap<String, Histogram> exchangeHistograms;
+	private final Histogram timestampHistogram;
+	
+	private final AtomicLong invalidTimeCount;
+	
+	public FeedLatencyTracker(final TimeZone timeZone) {
+		if (timeZone == null) {
+			throw new IllegalArgumentException("The \"timeZone\" argument is required.");
+		}
+		
+		this.timeZone = timeZone;
+		
+		this.symbolLatencies = new IndexedArray<SymbolLatency>(64);
+		this.exchangeHistograms = new ConcurrentHashMap<String, Histogram>(16, 0.75f, 2);
+		this.timestampHistogram = new Histogram("timestamp", HIGHEST_TRACKABLE_VALUE, PRECISION);
+		
+		this.invalidTimeCount = new AtomicLong(0L);
+	}
+	
+	public void onDelta(final int symbolId, final String symbol, final String time, final long receivedAt) {
+		if (time == null || time.length() == 0) {
+			return;
+		}
+		
+		final long sent = parseTime(time, timeZone);
+		
+		if (sent == INVALID_TIME) {
+			invalidTimeCount.incrementAndGet();
+			
+			return;
+		}
+		
+		final SymbolLatency latency = getSymbolLatency(symbolId, symbol);
+		final Histogram exchangeHistogram = latency.getExchangeHistogram();
+		
+		latency.getHistogram().record(receivedAt - sent);
+		
+		if (exchangeHistogram != null) {
+			exchangeHistogram.record(receivedAt - sent);
+		}
+	}
+	
+	public void onProfile(final int symbolId, final String symbol, final String exchange) {
+		if (exchange != null && exchange.length() != 0) {
+			getSymbolLatency(symbolId, symbol).setExchangeHistogram(getExchangeHistogram(exchange, true));
+		}
+	}
+	
+	public void onTimestamp(final String timestamp, final long receivedAt) {
+		final long sent = parseTime(timestamp, timeZone);
+		
+		if (sent != INVALID_TIME) {
+			timestampHistogram.record(receivedAt - sent);
+		} else {
+			invalidTimeCount.incrementAndGet();
+		}
+	}
+	
+	private SymbolLatency getSymbolLatency(final int symbolId, final String symbol) {
+		SymbolLatency returnRef = symbolLatencies.get(symbolId);
+		
+		if (returnRef == null) {
+			synchronized (symbolLatencies) {
+				returnRef = symbolLatencies.get(symbolId);
+				
+				if (returnRef == null) {
+					symbolLatencies.set(symbolId, returnRef = new SymbolLatency(new Histogram(symbol, HIGHEST_TRACKABLE_VALUE, PRECISION)));
+				}
+			}
+		}
+		
+		return returnRef;
+	}
+	
+	public Histogram getSymbolHistogram(final int symbolId) {
+		final SymbolLatency latency = symbolLatencies.get(symbolId);
+		
+		return latency != null ? latency.getHistogram() : null;
+	}
+	
+	public Histogram getExchangeHistogram(final String exchange) {
+		return getExchangeHistogram(exchange, false);
+	}
+	
+	private Histogram getExchangeHistogram(final String exchange, final boolean create) {
+		Histogram returnRef = exchangeHistograms.get(exchange);
+		
+		if (returnRef == null && create) {
+			final Histogram histogram = new Histogram(exchange, HIGHEST_TRACKABLE_VALUE, PRECISION);
+			
+			returnRef = exchangeHistograms.putIfAbsent(exchange, histogram);
+			
+			if (returnRef == null) {
+				returnRef = histogram;
+			}
+		}
+		
+		return returnRef;
+	}
+	
+	public Histogram getTimestampHistogram() {
+		return timestampHistogram;
+	}
+	
+	/* Times which could not be parsed (and were not recorded). */
+	public long getInvalidTimeCount() {
+		return invalidTimeCount.get();
+	}
+	
+	public FeedLatencySnapshot getSnapshot(final boolean reset) {
+		final Map<String, Histogram> symbols = new TreeMap<String, Histogram>();
+		
+		for (int i = 0; i < symbolLatencies.getLength(); i++) {
+			final SymbolLatency latency = symbolLatencies.get(i);
+			
+			if (latency != null) {
+				symbols.put(latency.getHistogram().getName(), latency.getHistogram().getSnapshot(reset));
+			}
+		}
+		
+		final Map<String, Histogram> exchanges = new TreeMap<String, Histogram>();
+		
+		for (final Histogram histogram : exchangeHistograms.values()) {
+			exchanges.put(histogram.getName(), histogram.getSnapshot(reset));
+		}
+		
+		return new FeedLatencySnapshot(symbols, exchanges, timestampHistogram.getSnapshot(reset));
+	}
+	
+	public void reset() {
+		for (int i = 0; i < symbolLatencies.getLength(); i++) {
+			final SymbolLatency latency = symbolLatencies.get(i);
+			
+			if (latency != null) {
+				latency.getHistogram().reset();
+			}
+		}
+		
+		for (final Histogram histogram : exchangeHistograms.values()) {
+			histogram.reset();
+		}
+		
+		timestampHistogram.reset();
+	}
+	
+	/*
+	 * Reads an ISO 8601 date and time (e.g. "2016-03-16T14:31:02.250", with an
+	 * optional "Z" or "+hh:mm" zone designator) or a count of milliseconds since
+	 * the epoch, without allocating. Returns INVALID_TIME for anything else.
+	 */
+	static long parseTime(final String text, final TimeZone defaultZone) {
+		if (text == null) {
+			return INVALID_TIME;
+		}
+		
+		final int length = text.length();
+		
+		final long epochMillis = parseDigits(text, 0, length);
+		
+		if (epochMillis >= 0) {
+			return epochMillis;
+		}
+		
+		if (length < 19 || text.charAt(4) != '-' || text.charAt(7) != '-' || (text.charAt(10) != 'T' && text.charAt(10) != ' ') || text.charAt(13) != ':' || text.charAt(16) != ':') {
+			return INVALID_TIME;
+		}
+		
+		final long year = parseDigits(text, 0, 4);
+		final long month = parseDigits(text, 5, 7);
+		final long day = parseDigits(text, 8, 10);
+		final long hour = parseDigits(text, 11, 13);
+		final long minute = parseDigits(text, 14, 16);
+		final long second = parseDigits(text, 17, 19);
+		
+		if (year < 0 || month < 1 || month > 12 || day < 1 || day > 31 || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 60) {
+			return INVALID_TIME;
+		}
+		
+		int position = 19;
+		long millis = 0;
+		
+		if (position < length && text.charAt(position) == '.') {
+			long scale = 100;
+			
+			for (position++; position < length && text.charAt(position) >= '0' && text.charAt(position) <= '9'; position++) {
+				millis += (text.charAt(position) - '0') * scale;
+				scale /= 10;
+			}
+		}
+		
+		final long local = ((getEpochDay(year, month, day) * 24 + hour) * 60 + minute) * 60000 + second * 1000 + millis;
+		
+		final long returnVal;
+		
+		if (position == length) {
+			/* The offset at the local time, less the standard offset, is close enough (except for the hour skipped or repeated at a daylight saving change). */
+			returnVal = local - defaultZone.getOffset(local - defaultZone.getRawOffset());
+		} else if (position + 1 == length && text.charAt(position) == 'Z') {
+			returnVal = local;
+		} else if (text.charAt(position) == '+' || text.charAt(position) == '-') {
+			final int sign = text.charAt(position) == '-' ? -1 : 1;
+			final int minutesAt = position + 3 < length && text.charAt(position + 3) == ':' ? position + 4 : position + 3;
+			
+			final long offsetHours = parseDigits(text, position + 1, position + 3);
+			final long offsetMinutes = parseDigits(text, minutesAt, minutesAt + 2);
+			
+			if (offsetHours < 0 || offsetMinutes < 0 || minutesAt + 2 != length) {
+				returnVal = INVALID_TIME;
+			} else {
+				returnVal = local - sign * (offsetHours * 60 + offsetMinutes) * 60000;
+			}
+		} else {
+			returnVal = INVALID_TIME;
+		}
+		
+		return returnVal;
+	}
+	
+	/* The value of the decimal digits from start (inclusive) to end (exclusive), or -1 if there are none or any are not digits. */
+	private static long parseDigits(final String text, final int start, final int end) {
+		if (start >= end || end > text.length() || end - start > 18) {
+			return -1;
+		}
+		
+		long returnVal = 0;
+		
+		for (int i = start; i < end; i++) {
+			final char c = text.charAt(i);
+			
+			if (c < '0' || c > '9') {
+				return -1;
+			}
+			
+			returnVal = returnVal * 10 + (c - '0');
+		}
+		
+		return returnVal;
+	}
+	
+	/* Days since 1970-01-01 in the proleptic Gregorian calendar. */
+	private static long getEpochDay(final long year, final long month, final long day) {
+		final long y = month <= 2 ? year - 1 : year;
+		final long era = (y >= 0 ? y : y - 399) / 400;
+		final long yearOfEra = y - era * 400;
+		final long dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+		final long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+		
+		return era * 146097 + dayOfEra - 719468;
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("[FeedLatencyTracker (timeZone: %s, exchanges: %s)]", timeZone.getID(), exchangeHistograms.size());
+	}
+	
+	private static final class SymbolLatency {
+		private final Histogram histogram;
+		private volatile Histogram exchangeHistogram;
+		
+		public SymbolLatency(final Histogram histogram) {
+			this.histogram = histogram;
+			this.exchangeHistogram = null;
+		}
+		
+		public Histogram getHistogram() {
+			return histogram;
+		}
+		
+		public Histogram getExchangeHistogram() {
+			return exchangeHistogram;
+		}
+		
+		public void setExchangeHistogram(final Histogram value) {
+			exchangeHistogram = value;
+		}
+	}
+}
@@ -1,7 +1,17 @@
 package com.barchart.streaming.connection;
 
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.json.JSONArray;
 import org.json.JSONException;
@@ -11,33 +21,81 @@ import org.slf4j.LoggerFactory;
 
 import com.barchart.common.Action;
 import com.barchart.common.Disposable;
+import com.barchart.common.data.IndexedArray;
 import com.barchart.common.data.Synchronizer;
+import com.barchart.common.messaging.Dispatcher;
 import com.barchart.common.messaging.Event;
+import com.barchart.common.messaging.HashedWheelTimer;
+import com.barchart.common.metrics.Histogram;
+import com.barchart.common.transport.RequestFailure;
 import com.barchart.common.transport.SocketConnection;
 import com.barchart.common.transport.SocketConnectionState;
 import com.barchart.streaming.connection.synchronizers.QuoteCopySynchronizer;
 import com.barchart.streaming.connection.synchronizers.QuoteUpdateSynchronizer;
+import com.barchart.streaming.data.MutablePrimitiveQuote;
 import com.barchart.streaming.data.MutableQuote;
+import com.barchart.streaming.data.PrimitiveMutableQuote;
+import com.barchart.streaming.data.PrimitiveQuote;
 import com.barchart.streaming.data.Profile;
 import com.barchart.streaming.data.Quote;
-import com.barchart.streaming.data.BasicMutableQuote;
+import com.barchart.streaming.data.QuoteChange;
+import com.barchart.streaming.data.QuoteField;
+import com.barchart.streaming.data.QuoteTable;
+import com.barchart.streaming.data.ReadOnlyQuote;
+import com.barchart.streaming.data.VersionedQuote;
 import com.barchart.streaming.data.BasicProfile;
 
 import io.socket.emitter.Emitter;
 
 public final class MarketSocketConnection extends SocketConnection {
 	private static final Logger logger;
+	private static final AtomicInteger connectionCounter;
+	private static final HashedWheelTimer snapshotRecoveryTimer;
 	
-	private final ConcurrentMap<String, Profile> profiles;
-	private final ConcurrentMap<String, MutableQuote> quotes;
+	private static final int PRICE_FIELDS = QuoteField.LAST_PRICE | QuoteField.TRADE_PRICE;
+	/* A NaN bit pattern which doubleToLongBits never returns (it collapses NaNs). */
+	private static final long NO_PRICE = Double.doubleToLongBits(Double.NaN) ^ 1L;
 	
-	private final ConcurrentMap<String, Event<Synchronizer<MutableQuote>>> quoteEvents;
-	private final ConcurrentMap<String, Event<Synchronizer<MutableQuote>>> priceChangeEvents;
+	private static final long SNAPSHOT_RECOVERY_TIMEOUT = 5000;
+	
+	private final SymbolRegistry symbolRegistry;
+	
+	private final ProfileCache profileCache;
+	private final boolean profilePrefetch;
+	private final Action<Profile> profilePrefetchHandler;
+	private final IndexedArray<MutablePrimitiveQuote> quotes;
+	private final IndexedArray<ReadOnlyQuote> readOnlyQuotes;
+	private final QuoteTable quoteTable;
+	private final IndexedArray<VersionedQuote> versionedQuotes;
+	private final SequenceTracker sequenceTracker;
+	private final FeedLatencyTracker latencyTracker;
+	
+	private final Dispatcher quoteDispatcher;
+	private final Action<JSONObject> quoteSnapshotHandler;
+	private final Action<JSONObject> quoteDeltaHandler;
+	
+	private final IndexedArray<Event<Synchronizer<MutableQuote>>> quoteEvents;
+	private final IndexedArray<Event<Synchronizer<MutableQuote>>> priceChangeEvents;
+	private final IndexedArray<Event<QuoteChange>> quoteChangeEvents;
+	
+	private final ScheduledExecutorService subscriptionScheduler;
+	private final SubscriptionCoalescer quoteSubscriptions;
+	private final SubscriptionCoalescer priceChangeSubscriptions;
 	
 	private final Event<String> timestampEvent;
 	
+	private final boolean processingTimes;
+	private final Histogram snapshotApplyTimes;
+	private final Histogram snapshotDispatchTimes;
+	private final Histogram deltaApplyTimes;
+	private final Histogram deltaDispatchTimes;
+	
 	static {
 		logger = LoggerFactory.getLogger(MarketSocketConnection.class);
+		
+		connectionCounter = new AtomicInteger(0);
+		
+		snapshotRecoveryTimer = new HashedWheelTimer("snapshot-recovery", 100, 512);
 	}
 	
 	public MarketSocketConnection() {
@@ -49,22 +107,135 @@ public final class MarketSocketConnection extends SocketConnection {
 	}
 	
 	public MarketSocketConnection(final String host, final int port, final boolean secure) {
-		super(host, port, secure);
+		this(host, port, secure, new MarketSocketConnectionOptions());
+	}
+	
+	public MarketSocketConnection(final String host, final int port, final boolean secure, final MarketSocketConnectionOptions options) {
+		super(host, port, secure, options != null && options.getHotStandby());
+		
+		if (options == null) {
+			throw new IllegalArgumentException("The \"options\" argument is required.");
+		}
+		
+		symbolRegistry = new SymbolRegistry();
+		
+		profileCache = new ProfileCache(options.getProfileCacheCapacity(), options.getProfileCacheExpiration());
+		profilePrefetch = options.getProfilePrefetch();
+		
+		profilePrefetchHandler = new Action<Profile>() {
+			@Override
+			public void execute(Profile profile) {
+			}
+		};
+		quotes = new IndexedArray<MutablePrimitiveQuote>(64);
+		readOnlyQuotes = new IndexedArray<ReadOnlyQuote>(64);
+		
+		quoteTable = options.getQuoteTable();
+		
+		if (options.getVersionedQuotes()) {
+			versionedQuotes = new IndexedArray<VersionedQuote>(64);
+		} else {
+			versionedQuotes = null;
+		}
+		
+		if (options.getSequenceGapDetection()) {
+			sequenceTracker = new SequenceTracker(SNAPSHOT_RECOVERY_TIMEOUT, snapshotRecoveryTimer, new Action<Integer>() {
+				@Override
+				public void execute(final Integer symbolId) {
+					onSnapshotRecoveryTimeout(symbolId.intValue());
+				}
+			});
+		} else {
+			sequenceTracker = null;
+		}
+		
+		if (options.getLatencyHistograms()) {
+			latencyTracker = new FeedLatencyTracker(options.getLatencyTimeZone());
+		} else {
+			latencyTracker = null;
+		}
+		
+		quoteDispatcher = options.getQuoteDispatcher();
+		
+		quoteSnapshotHandler = new Action<JSONObject>() {
+			@Override
+			public void execute(JSONObject data) {
+				onQuoteSnapshot(data);
+			}
+		};
+		
+		quoteDeltaHandler = new Action<JSONObject>() {
+			@Override
+			public void execute(JSONObject data) {
+				onQuoteDelta(data);
+			}
+		};
 		
-		profiles = new ConcurrentHashMap<String, Profile>(64, 0.75f, 2);
-		quotes = new ConcurrentHashMap<String, MutableQuote>(64, 0.75f, 2);
+		quoteEvents = new IndexedArray<Event<Synchronizer<MutableQuote>>>(64);
+		priceChangeEvents = new IndexedArray<Event<Synchronizer<MutableQuote>>>(64);
+		quoteChangeEvents = new IndexedArray<Event<QuoteChange>>(64);
 		
-		quoteEvents = new ConcurrentHashMap<String, Event<Synchronizer<MutableQuote>>>(64, 0.75f, 2);
-		priceChangeEvents = new ConcurrentHashMap<String, Event<Synchronizer<MutableQuote>>>(64, 0.75f, 2);
+		if (options.getSubscriptionWindow() > 0) {
+			subscriptionScheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+				@Override
+				public Thread newThread(final Runnable runnable) {
+					final Thread thread = new Thread(runnable, String.format("%s subscriptions", host));
+					
+					thread.setDaemon(true);
+					
+					return thread;
+				}
+			});
+			
+			quoteSubscriptions = new SubscriptionCoalescer("quotes", subscriptionScheduler, options.getSubscriptionWindow()) {
+				@Override
+				protected void send(final String[] symbols, final boolean subscribe) {
+					sendToServer(MarketSocketChannel.ChangeSymbolSubscription, getEventSubscriptionPayload(symbols, false, Boolean.valueOf(subscribe)));
+				}
+			};
+			
+			priceChangeSubscriptions = new SubscriptionCoalescer("priceChanges", subscriptionScheduler, options.getSubscriptionWindow()) {
+				@Override
+				protected void send(final String[] symbols, final boolean subscribe) {
+					sendToServer(MarketSocketChannel.ChangeSymbolSubscription, getEventSubscriptionPayload(symbols, true, Boolean.valueOf(subscribe)));
+				}
+			};
+		} else {
+			subscriptionScheduler = null;
+			quoteSubscriptions = null;
+			priceChangeSubscriptions = null;
+		}
 		
 		timestampEvent = new Event<String>("timestampUpdate");
 		
+		processingTimes = options.getProcessingTimes();
+		
+		if (processingTimes) {
+			snapshotApplyTimes = getMetrics().getHistogram("apply." + MarketSocketChannel.QuoteSnapshot.getChannelName());
+			snapshotDispatchTimes = getMetrics().getHistogram("dispatch." + MarketSocketChannel.QuoteSnapshot.getChannelName());
+			deltaApplyTimes = getMetrics().getHistogram("apply." + MarketSocketChannel.QuoteDelta.getChannelName());
+			deltaDispatchTimes = getMetrics().getHistogram("dispatch." + MarketSocketChannel.QuoteDelta.getChannelName());
+		} else {
+			snapshotApplyTimes = null;
+			snapshotDispatchTimes = null;
+			deltaApplyTimes = null;
+			deltaDispatchTimes = null;
+		}
+		
+		if (options.getPublishMetrics()) {
+			getMetrics().publish("com.barchart.streaming", "MarketSocketConnection", String.format("%s:%s#%s", host, port, connectionCounter.incrementAndGet()));
+		}
+		
 		registerSocketEventListener(MarketSocketChannel.Timestamp, new Emitter.Listener() {
 			public void call(Object... args) {
 				final JSONObject data = (JSONObject)args[0];
 				final String timestamp = data.optString("timestamp");
 				
 				if (timestamp != null) {
+					if (latencyTracker != null) {
+						latencyTracker.onTimestamp(timestamp, System.currentTimeMillis());
+					}
+					
 					timestampEvent.fire(timestamp);
 				} else {
 					logger.warn("Unable to extract \"{}\" property from {}", "timestamp", MarketSocketChannel.Timestamp);
@@ -85,60 +256,260 @@ public final class MarketSocketConnection extends SocketConnection {
 		
 		registerSocketEventListener(MarketSocketChannel.QuoteSnapshot, new Emitter.Listener() {
 			public void call(Object... args) {
-				final JSONObject data = (JSONObject)args[0];
-				final String symbol = data.optString("symbol");
+				dispatchQuoteMessage(quoteSnapshotHandler, (JSONObject)args[0]);
+			}
+		});
+		
+		registerSocketEventListener(MarketSocketChannel.QuoteDelta, new Emitter.Listener() {
+			public void call(Object... args) {
+				dispatchQuoteMessage(quoteDeltaHandler, (JSONObject)args[0]);
+			}
+		});
+	}
+	
+	private void dispatchQuoteMessage(final Action<JSONObject> handler, final JSONObject data) {
+		if (quoteDispatcher != null) {
+			final String symbol = data.optString("symbol");
+			
+			quoteDispatcher.dispatch(symbol != null ? symbolRegistry.register(symbol) : 0, handler, data);
+		} else {
+			handler.execute(data);
+		}
+	}
+	
+	void onQuoteSnapshot(final JSONObject data) {
+		final String symbol = data.optString("symbol");
 
-				if (symbol != null) {
-					final Synchronizer<MutableQuote> synchronizer = new QuoteUpdateSynchronizer(symbol, data);
-					final MutableQuote quote = new BasicMutableQuote(symbol, synchronizer);
-					
-					quotes.put(symbol, quote);
-					
-					final Event<Synchronizer<MutableQuote>> quoteEvent = quoteEvents.get(symbol);
+		if (symbol != null) {
+			final long start = processingTimes ? System.nanoTime() : 0L;
+			
+			final int symbolId = symbolRegistry.register(symbol);
+			
+			final QuoteUpdateSynchronizer synchronizer = new QuoteUpdateSynchronizer(symbol, data);
+			
+			if (sequenceTracker != null) {
+				sequenceTracker.onSnapshot(symbolId, getSequence(data));
+			}
+			
+			MutablePrimitiveQuote quote = null;
+			
+			if (quoteTable != null) {
+				final int slot = quoteTable.allocateSlot(symbol);
+				
+				if (slot >= 0) {
+					quote = quoteTable.getQuote(slot);
 					
-					if (quoteEvent != null) {
-						quoteEvent.fire(synchronizer);
-					}
+					quoteTable.clear(slot);
 					
-					final Event<Synchronizer<MutableQuote>> priceUpdateEvent = priceChangeEvents.get(symbol);
+					synchronizer.synchronize(quote);
 					
-					if (priceUpdateEvent != null) {
-						priceUpdateEvent.fire(synchronizer);
-					}
+					quotes.set(symbolId, quote);
+					readOnlyQuotes.set(symbolId, new ReadOnlyQuote(quote));
 				} else {
-					logger.warn("Dropping {} due to missing symbol.", MarketSocketChannel.QuoteSnapshot);
+					logger.warn("Unable to store {} for {}, the quote table is full.", MarketSocketChannel.QuoteSnapshot, symbol);
 				}
+			} else {
+				quote = new PrimitiveMutableQuote(symbol, synchronizer);
+				
+				quotes.set(symbolId, quote);
+				readOnlyQuotes.set(symbolId, new ReadOnlyQuote(quote));
 			}
-		});
+			
+			if (versionedQuotes != null && quote != null) {
+				updateVersionedQuote(symbolId, new QuoteCopySynchronizer(quote));
+			}
+			
+			final long applied = processingTimes ? System.nanoTime() : 0L;
+			
+			final Event<Synchronizer<MutableQuote>> quoteEvent = quoteEvents.get(symbolId);
+			
+			if (quoteEvent != null) {
+				quoteEvent.fire(synchronizer);
+			}
+			
+			final Event<QuoteChange> quoteChangeEvent = quoteChangeEvents.get(symbolId);
+			
+			if (quoteChangeEvent != null && quote != null) {
+				quoteChangeEvent.fire(new QuoteChange(readOnlyQuotes.get(symbolId), synchronizer.getFieldMask(), true));
+			}
+			
+			final Event<Synchronizer<MutableQuote>> priceUpdateEvent = priceChangeEvents.get(symbolId);
+			
+			if (priceUpdateEvent != null) {
+				priceUpdateEvent.fire(synchronizer);
+			}
+			
+			if (processingTimes) {
+				snapshotApplyTimes.record(applied - start);
+				snapshotDispatchTimes.record(System.nanoTime() - applied);
+			}
+		} else {
+			logger.warn("Dropping {} due to missing symbol.", MarketSocketChannel.QuoteSnapshot);
+		}
+	}
+	
+	void onQuoteDelta(final JSONObject data) {
+		final String symbol = data.optString("symbol");
 		
-		registerSocketEventListener(MarketSocketChannel.QuoteDelta, new Emitter.Listener() {
-			public void call(Object... args) {
-				final JSONObject data = (JSONObject)args[0];
-				final String symbol = data.optString("symbol");
+		if (symbol != null) {
+			final long start = processingTimes ? System.nanoTime() : 0L;
+			
+			final int symbolId = symbolRegistry.register(symbol);
+			
+			if (sequenceTracker != null) {
+				final int check = sequenceTracker.onDelta(symbolId, getSequence(data));
 				
-				if (symbol != null) {
-					final Synchronizer<MutableQuote> synchronizer = new QuoteUpdateSynchronizer(symbol, data);
-					Event<Synchronizer<MutableQuote>> event = quoteEvents.get(symbol);
+				if (check == SequenceTracker.GAP) {
+					logger.warn("Detected a sequence gap for {}, requesting a snapshot.", symbol);
 					
-					MutableQuote quote = quotes.get(symbol);
+					requestSnapshot(symbolId, symbol);
+				}
+				
+				if (check != SequenceTracker.ACCEPT) {
+					return;
+				}
+			}
+			
+			if (latencyTracker != null) {
+				latencyTracker.onDelta(symbolId, symbol, data.optString("time"), System.currentTimeMillis());
+			}
+			
+			final QuoteUpdateSynchronizer synchronizer = new QuoteUpdateSynchronizer(symbol, data);
+			final Event<Synchronizer<MutableQuote>> event = quoteEvents.get(symbolId);
+			final Event<Synchronizer<MutableQuote>> priceChangeEvent = priceChangeEvents.get(symbolId);
+			
+			final MutablePrimitiveQuote quote = quotes.get(symbolId);
+			
+			boolean priceChanged = false;
+			
+			if (quote != null) {
+				if (priceChangeEvent != null) {
+					final long lastPrice = getPriceBits(quote, QuoteField.LAST_PRICE);
+					final long tradePrice = getPriceBits(quote, QuoteField.TRADE_PRICE);
 					
-					if (quote != null) {
-						synchronizer.synchronize(quote);
-					}
+					synchronizer.synchronize(quote);
 					
-					if (event != null) {
-						event.fire(synchronizer);
+					if ((synchronizer.getFieldMask() & PRICE_FIELDS) != 0) {
+						priceChanged = lastPrice != getPriceBits(quote, QuoteField.LAST_PRICE) || tradePrice != getPriceBits(quote, QuoteField.TRADE_PRICE);
 					}
 				} else {
-					logger.warn("Dropping {} due to missing symbol.", MarketSocketChannel.QuoteDelta);
+					synchronizer.synchronize(quote);
+				}
+				
+				if (versionedQuotes != null) {
+					updateVersionedQuote(symbolId, synchronizer);
 				}
 			}
-		});
+			
+			final long applied = processingTimes ? System.nanoTime() : 0L;
+			
+			if (event != null) {
+				event.fire(synchronizer);
+			}
+			
+			if (priceChanged) {
+				priceChangeEvent.fire(synchronizer);
+			}
+			
+			final Event<QuoteChange> quoteChangeEvent = quoteChangeEvents.get(symbolId);
+			
+			if (quoteChangeEvent != null && quote != null) {
+				quoteChangeEvent.fire(new QuoteChange(readOnlyQuotes.get(symbolId), synchronizer.getFieldMask()));
+			}
+			
+			if (processingTimes) {
+				deltaApplyTimes.record(applied - start);
+				deltaDispatchTimes.record(System.nanoTime() - applied);
+			}
+		} else {
+			logger.warn("Dropping {} due to missing symbol.", MarketSocketChannel.QuoteDelta);
+		}
+	}
+	
+	private static Integer getSequence(final JSONObject data) {
+		final Integer returnRef;
+		
+		if (data.has("sequence")) {
+			returnRef = Integer.valueOf(data.optInt("sequence"));
+		} else {
+			returnRef = null;
+		}
+		
+		return returnRef;
+	}
+	
+	private void onSnapshotRecoveryTimeout(final int symbolId) {
+		if (getConnectionState() == SocketConnectionState.Connected) {
+			final String symbol = symbolRegistry.getSymbol(symbolId);
+			
+			logger.warn("No snapshot arrived for {} after a sequence gap, requesting it again.", symbol);
+			
+			requestSnapshot(symbolId, symbol);
+		}
+	}
+	
+	/* Resubscribing (bypassing any coalescer, which would cancel the pair) causes the server to send a snapshot. */
+	private void requestSnapshot(final int symbolId, final String symbol) {
+		final String[] symbols = new String[] { symbol };
+		
+		for (int i = 0; i < 2; i++) {
+			final boolean priceChanges = i == 1;
+			
+			synchronized (getSubscriptionLock(priceChanges)) {
+				if (getIsSubscribed(symbolId, priceChanges)) {
+					sendToServer(MarketSocketChannel.ChangeSymbolSubscription, getEventSubscriptionPayload(symbols, priceChanges, Boolean.FALSE));
+					sendToServer(MarketSocketChannel.ChangeSymbolSubscription, getEventSubscriptionPayload(symbols, priceChanges, Boolean.TRUE));
+				}
+			}
+		}
+	}
+	
+	/* Compared as raw bits, so a price appearing or disappearing is a change. */
+	private static long getPriceBits(final Quote quote, final int field) {
+		final long returnVal;
+		
+		if (quote instanceof PrimitiveQuote) {
+			final PrimitiveQuote primitiveQuote = (PrimitiveQuote)quote;
+			
+			if (!primitiveQuote.has(field)) {
+				returnVal = NO_PRICE;
+			} else if (field == QuoteField.LAST_PRICE) {
+				returnVal = Double.doubleToLongBits(primitiveQuote.getLastPriceAsDouble());
+			} else {
+				returnVal = Double.doubleToLongBits(primitiveQuote.getTradePriceAsDouble());
+			}
+		} else {
+			final Double price = field == QuoteField.LAST_PRICE ? quote.getLastPrice() : quote.getTradePrice();
+			
+			if (price != null) {
+				returnVal = Double.doubleToLongBits(price.doubleValue());
+			} else {
+				returnVal = NO_PRICE;
+			}
+		}
+		
+		return returnVal;
+	}
+	
+	private void updateVersionedQuote(final int symbolId, final Synchronizer<MutableQuote> synchronizer) {
+		VersionedQuote versionedQuote = versionedQuotes.get(symbolId);
+		
+		if (versionedQuote == null) {
+			versionedQuote = new VersionedQuote(symbolRegistry.getSymbol(symbolId));
+			
+			versionedQuotes.set(symbolId, versionedQuote);
+		}
+		
+		versionedQuote.update(synchronizer);
 	}
 	
 	@Override
 	protected void onConnectionStateChanged(SocketConnectionState connectionState) {
 		if (connectionState == SocketConnectionState.Connected) {
+			if (sequenceTracker != null) {
+				sequenceTracker.invalidate();
+			}
+			
 			if (!timestampEvent.getIsEmpty()) {
 				sendToServer(MarketSocketChannel.SubscribeTimestamp, new JSONObject());
 			} else {
@@ -146,16 +517,20 @@ public final class MarketSocketConnection extends SocketConnection {
 			}
 			
 			synchronized (quoteEvents) {
-				if (!quoteEvents.isEmpty()) {
-					sendToServer(MarketSocketChannel.ChangeSymbolSubscription, getSymbolSubscriptionPayload(quoteEvents.keySet().toArray(new String[quoteEvents.size()]), Boolean.TRUE, null));
+				if (!quoteEvents.getIsEmpty() || !quoteChangeEvents.getIsEmpty()) {
+					sendToServer(MarketSocketChannel.ChangeSymbolSubscription, getSymbolSubscriptionPayload(getSubscribedSymbols(quoteEvents, quoteChangeEvents), Boolean.TRUE, null));
 				}
 			}
 			
 			synchronized (priceChangeEvents) {
-				if (!priceChangeEvents.isEmpty()) {
-					sendToServer(MarketSocketChannel.ChangeSymbolSubscription, getSymbolSubscriptionPayload(priceChangeEvents.keySet().toArray(new String[priceChangeEvents.size()]), null, Boolean.TRUE));
+				if (!priceChangeEvents.getIsEmpty()) {
+					sendToServer(MarketSocketChannel.ChangeSymbolSubscription, getSymbolSubscriptionPayload(getSubscribedSymbols(priceChangeEvents), null, Boolean.TRUE));
 				}
 			}
+			
+			if (profilePrefetch) {
+				prefetchProfiles(getSubscribedSymbols(quoteEvents, quoteChangeEvents, priceChangeEvents));
+			}
 		}
 	}
 	
@@ -203,137 +578,411 @@ public final class MarketSocketConnection extends SocketConnection {
 			throw new IllegalArgumentException("The \"symbol\" argument is required.");
 		}
 		
+		return subscribeToQuotes(Collections.singleton(symbol), observer);
+	}
+	
+	public Disposable subscribeToQuotes(final Collection<String> symbols, final Action<Synchronizer<MutableQuote>> observer) {
+		return subscribeToQuotes(symbols, observer, true);
+	}
+	
+	/* Unless deliverCached is set, the observer is not given the quotes already cached (e.g. when a pool moves a subscription here). */
+	Disposable subscribeToQuotes(final Collection<String> symbols, final Action<Synchronizer<MutableQuote>> observer, final boolean deliverCached) {
+		final String[] copies = getSymbolArray(symbols);
+		
 		if (observer == null) {
 			throw new IllegalArgumentException("The \"observer\" argument is required.");
 		}
 		
-		final Quote quote = quotes.get(symbol);
-		
-		if (quote != null) {
-			observer.execute(new QuoteCopySynchronizer(quote));
+		if (deliverCached) {
+			for (int i = 0; i < copies.length; i++) {
+				final Quote quote = quotes.get(symbolRegistry.register(copies[i]));
+				
+				if (quote != null) {
+					observer.execute(new QuoteCopySynchronizer(quote));
+				}
+			}
 		}
 		
-		synchronized (quoteEvents) {
-			if (!quoteEvents.containsKey(symbol)) {
-				quoteEvents.putIfAbsent(symbol, new Event<Synchronizer<MutableQuote>>(String.format("%s quoteUpdated", symbol)));
-			}
-			
-			final Event<Synchronizer<MutableQuote>> quoteUpdated = quoteEvents.get(symbol);
-			final boolean empty = quoteUpdated.getIsEmpty();
-			
-			quoteUpdated.register(observer);
-			
-			if (empty) {
-				sendToServer(MarketSocketChannel.ChangeSymbolSubscription, getSymbolSubscriptionPayload(new String[] { symbol }, Boolean.TRUE, null));
-			}
+		subscribe(quoteEvents, copies, observer, false, "%s quoteUpdated");
+		
+		if (profilePrefetch) {
+			prefetchProfiles(copies);
 		}
 		
 		return new Disposable() {
 			@Override
 			public void dispose() {
-				unsubscribeFromQuotes(symbol, observer);
+				unsubscribe(quoteEvents, copies, observer, false);
 			}
 		};
 	}
 	
+	public ConflatedQuoteSubscription subscribeToQuotes(final String symbol, final Action<Synchronizer<MutableQuote>> observer, final Executor executor) {
+		if (symbol == null) {
+			throw new IllegalArgumentException("The \"symbol\" argument is required.");
+		}
+		
+		if (observer == null) {
+			throw new IllegalArgumentException("The \"observer\" argument is required.");
+		}
+		
+		if (executor == null) {
+			throw new IllegalArgumentException("The \"executor\" argument is required.");
+		}
+		
+		final ConflatedQuoteSubscription subscription = new ConflatedQuoteSubscription(symbol, observer, executor);
+		
+		subscription.setRegistration(subscribeToQuotes(symbol, subscription.getCollector()));
+		
+		return subscription;
+	}
+	
 	public void unsubscribeFromQuotes(final String symbol, final Action<Synchronizer<MutableQuote>> observer) {
 		if (symbol == null) {
 			throw new IllegalArgumentException("The \"symbol\" argument is required.");
 		}
 		
+		unsubscribeFromQuotes(Collections.singleton(symbol), observer);
+	}
+	
+	public void unsubscribeFromQuotes(final Collection<String> symbols, final Action<Synchronizer<MutableQuote>> observer) {
+		final String[] copies = getSymbolArray(symbols);
+		
 		if (observer == null) {
 			throw new IllegalArgumentException("The \"observer\" argument is required.");
 		}
 		
-		synchronized (quoteEvents) {
-			if (quoteEvents.containsKey(symbol)) {
-				final Event<Synchronizer<MutableQuote>> quoteUpdated = quoteEvents.get(symbol);
-				final boolean empty = quoteUpdated.getIsEmpty();
-				
-				quoteUpdated.unregister(observer);
+		unsubscribe(quoteEvents, copies, observer, false);
+	}
+	
+	public Disposable subscribeToQuoteChanges(final String symbol, final Action<QuoteChange> observer) {
+		if (symbol == null) {
+			throw new IllegalArgumentException("The \"symbol\" argument is required.");
+		}
+		
+		return subscribeToQuoteChanges(Collections.singleton(symbol), observer);
+	}
+	
+	public Disposable subscribeToQuoteChanges(final Collection<String> symbols, final Action<QuoteChange> observer) {
+		return subscribeToQuoteChanges(symbols, observer, true);
+	}
+	
+	Disposable subscribeToQuoteChanges(final Collection<String> symbols, final Action<QuoteChange> observer, final boolean deliverCached) {
+		final String[] copies = getSymbolArray(symbols);
+		
+		if (observer == null) {
+			throw new IllegalArgumentException("The \"observer\" argument is required.");
+		}
+		
+		if (deliverCached) {
+			for (int i = 0; i < copies.length; i++) {
+				final Quote quote = quotes.get(symbolRegistry.register(copies[i]));
 				
-				if (!empty && quoteUpdated.getIsEmpty()) {
-					sendToServer(MarketSocketChannel.ChangeSymbolSubscription, getSymbolSubscriptionPayload(new String[] { symbol }, Boolean.FALSE, null));
-					
-					quoteEvents.remove(symbol);
+				if (quote != null) {
+					observer.execute(new QuoteChange(new ReadOnlyQuote(new PrimitiveMutableQuote(copies[i], new QuoteCopySynchronizer(quote))), QuoteField.ALL, true));
 				}
 			}
 		}
+		
+		subscribe(quoteChangeEvents, copies, observer, false, "%s quoteChanged");
+		
+		if (profilePrefetch) {
+			prefetchProfiles(copies);
+		}
+		
+		return new Disposable() {
+			@Override
+			public void dispose() {
+				unsubscribe(quoteChangeEvents, copies, observer, false);
+			}
+		};
 	}
 	
-	public Disposable subscribeToPriceChanges(final String symbol, final Action<Synchronizer<MutableQuote>> observer) {
+	public void unsubscribeFromQuoteChanges(final String symbol, final Action<QuoteChange> observer) {
 		if (symbol == null) {
 			throw new IllegalArgumentException("The \"symbol\" argument is required.");
 		}
 		
+		unsubscribeFromQuoteChanges(Collections.singleton(symbol), observer);
+	}
+	
+	public void unsubscribeFromQuoteChanges(final Collection<String> symbols, final Action<QuoteChange> observer) {
+		final String[] copies = getSymbolArray(symbols);
+		
 		if (observer == null) {
 			throw new IllegalArgumentException("The \"observer\" argument is required.");
 		}
 		
-		final Quote quote = quotes.get(symbol);
+		unsubscribe(quoteChangeEvents, copies, observer, false);
+	}
+	
+	public Disposable subscribeToPriceChanges(final String symbol, final Action<Synchronizer<MutableQuote>> observer) {
+		if (symbol == null) {
+			throw new IllegalArgumentException("The \"symbol\" argument is required.");
+		}
 		
-		if (quote != null) {
-			observer.execute(new QuoteCopySynchronizer(quote));
+		return subscribeToPriceChanges(Collections.singleton(symbol), observer);
+	}
+	
+	public Disposable subscribeToPriceChanges(final Collection<String> symbols, final Action<Synchronizer<MutableQuote>> observer) {
+		return subscribeToPriceChanges(symbols, observer, true);
+	}
+	
+	Disposable subscribeToPriceChanges(final Collection<String> symbols, final Action<Synchronizer<MutableQuote>> observer, final boolean deliverCached) {
+		final String[] copies = getSymbolArray(symbols);
+		
+		if (observer == null) {
+			throw new IllegalArgumentException("The \"observer\" argument is required.");
 		}
 		
-		synchronized (priceChangeEvents) {
-			if (!priceChangeEvents.containsKey(symbol)) {
-				priceChangeEvents.put(symbol, new Event<Synchronizer<MutableQuote>>(String.format("%s priceUpdated", symbol)));
-			}
-			
-			final Event<Synchronizer<MutableQuote>> priceChanged = priceChangeEvents.get(symbol);
-			final boolean empty = priceChanged.getIsEmpty();
-			
-			priceChanged.register(observer);
-			
-			if (empty) {
-				sendToServer(MarketSocketChannel.ChangeSymbolSubscription, getSymbolSubscriptionPayload(new String[] { symbol }, null, Boolean.TRUE));
+		if (deliverCached) {
+			for (int i = 0; i < copies.length; i++) {
+				final Quote quote = quotes.get(symbolRegistry.register(copies[i]));
+				
+				if (quote != null) {
+					observer.execute(new QuoteCopySynchronizer(quote));
+				}
 			}
 		}
 		
+		subscribe(priceChangeEvents, copies, observer, true, "%s priceUpdated");
+		
+		if (profilePrefetch) {
+			prefetchProfiles(copies);
+		}
+		
 		return new Disposable() {
 			@Override
 			public void dispose() {
-				unsubscribeFromPriceChanges(symbol, observer);
+				unsubscribe(priceChangeEvents, copies, observer, true);
 			}
 		};
 	}
 	
-	public void unsubscribeFromPriceChanges(String symbol, Action<Synchronizer<MutableQuote>> observer) {
+	public void unsubscribeFromPriceChanges(final String symbol, final Action<Synchronizer<MutableQuote>> observer) {
 		if (symbol == null) {
 			throw new IllegalArgumentException("The \"symbol\" argument is required.");
 		}
 		
+		unsubscribeFromPriceChanges(Collections.singleton(symbol), observer);
+	}
+	
+	public void unsubscribeFromPriceChanges(final Collection<String> symbols, final Action<Synchronizer<MutableQuote>> observer) {
+		final String[] copies = getSymbolArray(symbols);
+		
 		if (observer == null) {
 			throw new IllegalArgumentException("The \"observer\" argument is required.");
 		}
 		
-		synchronized (priceChangeEvents) {
-			if (priceChangeEvents.containsKey(symbol)) {
-				final Event<Synchronizer<MutableQuote>> priceChanged = priceChangeEvents.get(symbol);
-				final boolean empty = priceChanged.getIsEmpty();
+		unsubscribe(priceChangeEvents, copies, observer, true);
+	}
+	
+	private <T> void subscribe(final IndexedArray<Event<T>> events, final String[] symbols, final Action<T> observer, final boolean priceChanges, final String eventFormat) {
+		synchronized (getSubscriptionLock(priceChanges)) {
+			final List<String> added = new ArrayList<String>(symbols.length);
+			
+			for (int i = 0; i < symbols.length; i++) {
+				final int symbolId = symbolRegistry.register(symbols[i]);
+				final boolean subscribed = getIsSubscribed(symbolId, priceChanges);
 				
-				priceChanged.unregister(observer);
+				Event<T> event = events.get(symbolId);
+				
+				if (event == null) {
+					event = new Event<T>(String.format(eventFormat, symbols[i]));
+					
+					events.set(symbolId, event);
+				}
 				
-				if (!empty && priceChanged.getIsEmpty()) {
-					sendToServer(MarketSocketChannel.ChangeSymbolSubscription, getSymbolSubscriptionPayload(new String[] { symbol }, null, Boolean.FALSE));
+				event.register(observer);
+				
+				if (!subscribed) {
+					added.add(symbols[i]);
+				}
+			}
+			
+			if (!added.isEmpty()) {
+				sendSubscriptionChange(added, priceChanges, true);
+			}
+		}
+	}
+	
+	private <T> void unsubscribe(final IndexedArray<Event<T>> events, final String[] symbols, final Action<T> observer, final boolean priceChanges) {
+		synchronized (getSubscriptionLock(priceChanges)) {
+			final List<String> removed = new ArrayList<String>(symbols.length);
+			
+			for (int i = 0; i < symbols.length; i++) {
+				final int symbolId = symbolRegistry.getId(symbols[i]);
+				final Event<T> event = events.get(symbolId);
 				
-					priceChangeEvents.remove(symbol);
+				if (event != null) {
+					final boolean empty = event.getIsEmpty();
+					
+					event.unregister(observer);
+					
+					if (!empty && event.getIsEmpty()) {
+						events.remove(symbolId);
+						
+						if (!getIsSubscribed(symbolId, priceChanges)) {
+							removed.add(symbols[i]);
+						}
+					}
 				}
 			}
+			
+			if (!removed.isEmpty()) {
+				sendSubscriptionChange(removed, priceChanges, false);
+			}
+		}
+	}
+	
+	/* Quote and quote change observers share one server subscription, so they share a lock. */
+	private Object getSubscriptionLock(final boolean priceChanges) {
+		return priceChanges ? priceChangeEvents : quoteEvents;
+	}
+	
+	private boolean getIsSubscribed(final int symbolId, final boolean priceChanges) {
+		final boolean returnVal;
+		
+		if (priceChanges) {
+			returnVal = priceChangeEvents.get(symbolId) != null;
+		} else {
+			returnVal = quoteEvents.get(symbolId) != null || quoteChangeEvents.get(symbolId) != null;
 		}
+		
+		return returnVal;
+	}
+	
+	private void sendSubscriptionChange(final List<String> symbols, final boolean priceChanges, final boolean subscribe) {
+		final SubscriptionCoalescer coalescer = priceChanges ? priceChangeSubscriptions : quoteSubscriptions;
+		
+		if (coalescer != null) {
+			coalescer.change(symbols, subscribe);
+		} else {
+			sendToServer(MarketSocketChannel.ChangeSymbolSubscription, getEventSubscriptionPayload(symbols.toArray(new String[symbols.size()]), priceChanges, Boolean.valueOf(subscribe)));
+		}
+	}
+	
+	/* True after a sequence gap, until the symbol's next snapshot arrives. */
+	public boolean getIsStale(final String symbol) {
+		if (symbol == null) {
+			throw new IllegalArgumentException("The \"symbol\" argument is required.");
+		}
+		
+		return sequenceTracker != null && sequenceTracker.getIsStale(symbolRegistry.getId(symbol));
+	}
+	
+	public long getSequenceGapCount() {
+		return sequenceTracker != null ? sequenceTracker.getGapCount() : 0;
+	}
+	
+	/* Deltas discarded because they were out of sequence, or arrived while the symbol was stale. */
+	public long getDiscardedDeltaCount() {
+		return sequenceTracker != null ? sequenceTracker.getDiscardedCount() : 0;
+	}
+	
+	public long getRecoveredSnapshotCount() {
+		return sequenceTracker != null ? sequenceTracker.getRecoveredCount() : 0;
+	}
+	
+	/* Milliseconds from the exchange time of the symbol's quote deltas until they were applied; null if none have been recorded. */
+	public Histogram getLatencyHistogram(final String symbol) {
+		if (symbol == null) {
+			throw new IllegalArgumentException("The \"symbol\" argument is required.");
+		}
+		
+		return latencyTracker != null ? latencyTracker.getSymbolHistogram(symbolRegistry.getId(symbol)) : null;
+	}
+	
+	/* As getLatencyHistogram, for all symbols of an exchange (see Profile.getExchange). */
+	public Histogram getExchangeLatencyHistogram(final String exchange) {
+		if (exchange == null) {
+			throw new IllegalArgumentException("The \"exchange\" argument is required.");
+		}
+		
+		return latencyTracker != null ? latencyTracker.getExchangeHistogram(exchange) : null;
+	}
+	
+	/* Milliseconds from the server's timestamps until they arrived. */
+	public Histogram getTimestampLatencyHistogram() {
+		return latencyTracker != null ? latencyTracker.getTimestampHistogram() : null;
+	}
+	
+	/* Copies of the latency histograms, optionally resetting each as it is copied; null unless enabled. */
+	public FeedLatencySnapshot getLatencySnapshot(final boolean reset) {
+		return latencyTracker != null ? latencyTracker.getSnapshot(reset) : null;
+	}
+	
+	public void resetLatencyHistograms() {
+		if (latencyTracker != null) {
+			latencyTracker.reset();
+		}
+	}
+	
+	public QuoteTable getQuoteTable() {
+		return quoteTable;
+	}
+	
+	public VersionedQuote getVersionedQuote(final String symbol) {
+		if (symbol == null) {
+			throw new IllegalArgumentException("The \"symbol\" argument is required.");
+		}
+		
+		final VersionedQuote returnRef;
+		
+		if (versionedQuotes != null) {
+			returnRef = versionedQuotes.get(symbolRegistry.getId(symbol));
+		} else {
+			returnRef = null;
+		}
+		
+		return returnRef;
+	}
+	
+	public SymbolRegistry getSymbolRegistry() {
+		return symbolRegistry;
 	}
 	
 	public void requestProfile(final String symbol, final Action<Profile> callback) {
+		requestProfile(symbol, callback, null);
+	}
+	
+	public void requestProfile(final String symbol, final Action<Profile> callback, final Action<RequestFailure> failureCallback) {
 		if (symbol == null) {
 			throw new IllegalArgumentException("The \"symbol\" argument is required.");
 		}
 		
-		final Profile profile = profiles.get(symbol);
+		if (callback == null) {
+			throw new IllegalArgumentException("The \"callback\" argument is required.");
+		}
+		
+		fetchProfile(symbol, callback, failureCallback);
+	}
+	
+	public ProfileBatch requestProfiles(final Collection<String> symbols) {
+		final Set<String> distinct = new LinkedHashSet<String>(Arrays.asList(getSymbolArray(symbols)));
+		final ProfileBatch batch = new ProfileBatch(distinct.size());
+		
+		for (final String symbol : distinct) {
+			fetchProfile(symbol, batch.getCollector(), batch.getFailureCollector(symbol));
+		}
+		
+		return batch;
+	}
+	
+	private void prefetchProfiles(final String[] symbols) {
+		if (getConnectionState() == SocketConnectionState.Connected) {
+			for (int i = 0; i < symbols.length; i++) {
+				fetchProfile(symbols[i], profilePrefetchHandler, null);
+			}
+		}
+	}
+	
+	private void fetchProfile(final String symbol, final Action<Profile> callback, final Action<RequestFailure> failureCallback) {
+		final Profile profile = profileCache.get(symbol);
 		
 		if (profile != null) {
 			callback.execute(profile);
-		} else {
+		} else if (profileCache.await(symbol, callback, failureCallback)) {
 			JSONObject payload = new JSONObject();
 			
 			try {
@@ -347,11 +996,32 @@ public final class MarketSocketConnection extends SocketConnection {
 			final Action<JSONObject> requestHandler = new Action<JSONObject>() {
 				@Override
 				public void execute(JSONObject data) {
-					callback.execute(updateProfile(symbol, data));
+					updateProfile(symbol, data);
 				}
 			};
 			
-			requestFromServer(MarketSocketChannel.RequestProfile, payload, requestHandler);
+			final Action<RequestFailure> failureHandler = new Action<RequestFailure>() {
+				@Override
+				public void execute(RequestFailure failure) {
+					failProfile(symbol, failure);
+				}
+			};
+			
+			requestFromServer(MarketSocketChannel.RequestProfile, payload, requestHandler, failureHandler);
+		}
+	}
+	
+	private void failProfile(final String symbol, final RequestFailure failure) {
+		final List<Action<RequestFailure>> failureCallbacks = profileCache.fail(symbol);
+		
+		if (failureCallbacks != null) {
+			for (int i = 0; i < failureCallbacks.size(); i++) {
+				try {
+					failureCallbacks.get(i).execute(failure);
+				} catch (Exception e) {
+					logger.error(String.format("Profile failure callback failed for %s.", symbol), e);
+				}
+			}
 		}
 	}
 	
@@ -368,16 +1038,86 @@ public final class MarketSocketConnection extends SocketConnection {
 				data.optString("year")
 			);
 
-		profiles.put(symbol, profile);
+		final List<Action<Profile>> callbacks = profileCache.complete(profile);
+		
+		if (latencyTracker != null) {
+			latencyTracker.onProfile(symbolRegistry.register(symbol), symbol, profile.getExchange());
+		}
+		
+		if (callbacks != null) {
+			for (int i = 0; i < callbacks.size(); i++) {
+				try {
+					callbacks.get(i).execute(profile);
+				} catch (Exception e) {
+					logger.error(String.format("Profile callback failed for %s.", symbol), e);
+				}
+			}
+		}
 		
 		return profile;
 	}
 	
+	public ProfileCache getProfileCache() {
+		return profileCache;
+	}
+	
 	@Override
 	public void dispose() {
+		if (subscriptionScheduler != null) {
+			subscriptionScheduler.shutdownNow();
+		}
+		
+		if (sequenceTracker != null) {
+			sequenceTracker.dispose();
+		}
+		
 		super.dispose();
 	}
 	
+	private String[] getSubscribedSymbols(final IndexedArray<?>... eventArrays) {
+		final List<String> symbols = new ArrayList<String>();
+		
+		for (int i = 0; i < symbolRegistry.getSize(); i++) {
+			for (int j = 0; j < eventArrays.length; j++) {
+				if (eventArrays[j].get(i) != null) {
+					symbols.add(symbolRegistry.getSymbol(i));
+					
+					break;
+				}
+			}
+		}
+		
+		return symbols.toArray(new String[symbols.size()]);
+	}
+	
+	private static String[] getSymbolArray(final Collection<String> symbols) {
+		if (symbols == null) {
+			throw new IllegalArgumentException("The \"symbols\" argument is required.");
+		}
+		
+		final String[] returnRef = symbols.toArray(new String[symbols.size()]);
+		
+		for (int i = 0; i < returnRef.length; i++) {
+			if (returnRef[i] == null) {
+				throw new IllegalArgumentException("The \"symbols\" argument cannot contain a null symbol.");
+			}
+		}
+		
+		return returnRef;
+	}
+	
+	private static JSONObject getEventSubscriptionPayload(final String[] symbols, final boolean priceChanges, final Boolean subscribe) {
+		final JSONObject returnRef;
+		
+		if (priceChanges) {
+			returnRef = getSymbolSubscriptionPayload(symbols, null, subscribe);
+		} else {
+			returnRef = getSymbolSubscriptionPayload(symbols, subscribe, null);
+		}
+		
+		return returnRef;
+	}
+	
 	private static JSONObject getSymbolSubscriptionPayload(final String[] symbols, final Boolean subscribeToQuotes, final Boolean subscribeToPrices) {
 		JSONObject returnRef = new JSONObject();
 	
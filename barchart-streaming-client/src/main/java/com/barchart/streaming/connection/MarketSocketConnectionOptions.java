@@ -0,0 +1,172 @@
+package com.barchart.streaming.connection;
+
+import java.util.TimeZone;
+
+import com.barchart.common.messaging.Dispatcher;
+import com.barchart.streaming.data.QuoteTable;
+
+public class MarketSocketConnectionOptions {
+	private QuoteTable quoteTable;
+	private Dispatcher quoteDispatcher;
+	private long subscriptionWindow;
+	private boolean versionedQuotes;
+	private int profileCacheCapacity;
+	private long profileCacheExpiration;
+	private boolean profilePrefetch;
+	private boolean hotStandby;
+	private boolean sequenceGapDetection;
+	private boolean publishMetrics;
+	private boolean processingTimes;
+	private boolean latencyHistograms;
+	private TimeZone latencyTimeZone;
+	
+	public MarketSocketConnectionOptions() {
+		this.quoteTable = null;
+		this.quoteDispatcher = null;
+		this.subscriptionWindow = 0;
+		this.versionedQuotes = false;
+		this.profileCacheCapacity = 16384;
+		this.profileCacheExpiration = 3600000;
+		this.profilePrefetch = true;
+		this.hotStandby = false;
+		this.sequenceGapDetection = false;
+		this.publishMetrics = false;
+		this.processingTimes = false;
+		this.latencyHistograms = false;
+		this.latencyTimeZone = TimeZone.getTimeZone("UTC");
+	}
+	
+	public QuoteTable getQuoteTable() {
+		return quoteTable;
+	}
+	
+	public void setQuoteTable(final QuoteTable value) {
+		quoteTable = value;
+	}
+	
+	public Dispatcher getQuoteDispatcher() {
+		return quoteDispatcher;
+	}
+	
+	public void setQuoteDispatcher(final Dispatcher value) {
+		quoteDispatcher = value;
+	}
+	
+	/* Milliseconds over which subscription changes are coalesced; zero sends each change immediately. */
+	public long getSubscriptionWindow() {
+		return subscriptionWindow;
+	}
+	
+	public void setSubscriptionWindow(final long value) {
+		if (value < 0) {
+			throw new IllegalArgumentException("The \"value\" argument cannot be negative.");
+		}
+		
+		subscriptionWindow = value;
+	}
+	
+	public boolean getVersionedQuotes() {
+		return versionedQuotes;
+	}
+	
+	public void setVersionedQuotes(final boolean value) {
+		versionedQuotes = value;
+	}
+	
+	public int getProfileCacheCapacity() {
+		return profileCacheCapacity;
+	}
+	
+	public void setProfileCacheCapacity(final int value) {
+		if (value < 1) {
+			throw new IllegalArgumentException("The \"value\" argument must be positive.");
+		}
+		
+		profileCacheCapacity = value;
+	}
+	
+	/* Milliseconds a cached profile remains valid. */
+	public long getProfileCacheExpiration() {
+		return profileCacheExpiration;
+	}
+	
+	public void setProfileCacheExpiration(final long value) {
+		if (value < 1) {
+			throw new IllegalArgumentException("The \"value\" argument must be positive.");
+		}
+		
+		profileCacheExpiration = value;
+	}
+	
+	/* Request profiles for symbols as they are subscribed. */
+	public boolean getProfilePrefetch() {
+		return profilePrefetch;
+	}
+	
+	public void setProfilePrefetch(final boolean value) {
+		profilePrefetch = value;
+	}
+	
+	/* Keep a second connection open, ready to take over if the first is lost. */
+	public boolean getHotStandby() {
+		return hotStandby;
+	}
+	
+	public void setHotStandby(final boolean value) {
+		hotStandby = value;
+	}
+	
+	/* Check that each symbol's deltas arrive in sequence, requesting a new snapshot after a gap. */
+	public boolean getSequenceGapDetection() {
+		return sequenceGapDetection;
+	}
+	
+	public void setSequenceGapDetection(final boolean value) {
+		sequenceGapDetection = value;
+	}
+	
+	/* Register the connection's metrics (see getMetrics) with the platform MBean server. */
+	public boolean getPublishMetrics() {
+		return publishMetrics;
+	}
+	
+	public void setPublishMetrics(final boolean value) {
+		publishMetrics = value;
+	}
+	
+	/* Record how long quote snapshots and deltas take to apply and dispatch, as histograms in the connection's metrics (two clock reads and two shared histogram updates per message). */
+	public boolean getProcessingTimes() {
+		return processingTimes;
+	}
+	
+	public void setProcessingTimes(final boolean value) {
+		processingTimes = value;
+	}
+	
+	/* Record how old quote deltas and server timestamps are when they arrive (see MarketSocketConnection.getLatencySnapshot). */
+	public boolean getLatencyHistograms() {
+		return latencyHistograms;
+	}
+	
+	public void setLatencyHistograms(final boolean value) {
+		latencyHistograms = value;
+	}
+	
+	/* The time zone of quote and server times which do not specify one. */
+	public TimeZone getLatencyTimeZone() {
+		return latencyTimeZone;
+	}
+	
+	public void setLatencyTimeZone(final TimeZone value) {
+		if (value == null) {
+			throw new IllegalArgumentException("The \"value\" argument is required.");
+		}
+		
+		latencyTimeZone = value;
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("[MarketSocketConnectionOptions (quoteTable: %s, quoteDispatcher: %s, subscriptionWindow: %s, versionedQuotes: %s, profileCacheCapacity: %s, profileCacheExpiration: %s, profilePrefetch: %s, hotStandby: %s, sequenceGapDetection: %s, publishMetrics: %s, processingTimes: %s, latencyHistograms: %s, latencyTimeZone: %s)]", quoteTable, quoteDispatcher, subscriptionWindow, versionedQuotes, profileCacheCapacity, profileCacheExpiration, profilePrefetch, hotStandby, sequenceGapDetection, publishMetrics, processingTimes, latencyHistograms, latencyTimeZone.getID());
+	}
+}
@@ -0,0 +1,610 @@
+package com.barchart.streaming.connection;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.barchart.common.Action;
+import com.barchart.common.Disposable;
+import com.barchart.common.data.Synchronizer;
+import com.barchart.common.transport.RequestFailure;
+import com.barchart.common.transport.SocketConnectionState;
+import com.barchart.streaming.data.MutableQuote;
+import com.barchart.streaming.data.Profile;
+import com.barchart.streaming.data.QuoteChange;
+import com.barchart.streaming.data.VersionedQuote;
+
+/*
+ * Spreads symbols across several connections to the same host, each with its
+ * own socket and event thread. Symbols are assigned by consistent hashing
+ * (each connection owns many points on a ring), so when a connection is lost
+ * only its symbols move to the others, and only those symbols move back when
+ * it reconnects. Subscriptions follow their symbols when they move, but are
+ * not given the quote cached by the connection they move to, since it may be
+ * out of date (e.g. left over from before that connection was lost).
+ *
+ * Every connection is created with the same options, so a Dispatcher given
+ * in the options is shared. The options cannot include a QuoteTable, since
+ * each connection would write to it.
+ */
+public final class MarketSocketConnectionPool implements Disposable {
+	private static final Logger logger;
+	
+	private static final int VIRTUAL_NODES = 128;
+	
+	private final String host;
+	
+	private final MarketSocketConnection[] connections;
+	private final boolean[] failed;
+	private final List<Disposable> connectionBindings;
+	
+	private final Object lock;
+	private TreeMap<Integer, Integer> ring;
+	private final Map<String, Integer> assignments;
+	private final Map<String, List<PoolSubscription>> subscriptions;
+	
+	private boolean connected;
+	private long rebalanceCount;
+	private long movedCount;
+	
+	private final ExecutorService rebalancer;
+	
+	static {
+		logger = LoggerFactory.getLogger(MarketSocketConnectionPool.class);
+	}
+	
+	public MarketSocketConnectionPool(final String host, final int port, final boolean secure, final int size) {
+		this(host, port, secure, size, new MarketSocketConnectionOptions());
+	}
+	
+	public MarketSocketConnectionPool(final String host, final int port, final boolean secure, final int size, final MarketSocketConnectionOptions options) {
+		if (host == null) {
+			throw new IllegalArgumentException("The \"host\" argument is required.");
+		}
+		
+		if (size < 1) {
+			throw new IllegalArgumentException("The \"size\" argument must be positive.");
+		}
+		
+		if (options == null) {
+			throw new IllegalArgumentException("The \"options\" argument is required.");
+		}
+		
+		if (options.getQuoteTable() != null) {
+			throw new IllegalArgumentException("The \"options\" argument cannot include a quote table, since each connection would write to it.");
+		}
+		
+		this.host = host;
+		
+		this.connections = new MarketSocketConnection[size];
+		this.failed = new boolean[size];
+		this.connectionBindings = new ArrayList<Disposable>(size);
+		
+		this.lock = new Object();
+		this.assignments = new HashMap<String, Integer>();
+		this.subscriptions = new LinkedHashMap<String, List<PoolSubscription>>();
+		
+		this.connected = false;
+		this.rebalanceCount = 0;
+		this.movedCount = 0;
+		
+		this.rebalancer = Executors.newSingleThreadExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(final Runnable runnable) {
+				final Thread thread = new Thread(runnable, String.format("%s pool rebalancer", host));
+				
+				thread.setDaemon(true);
+				
+				return thread;
+			}
+		});
+		
+		for (int i = 0; i < size; i++) {
+			final int index = i;
+			
+			connections[i] = new MarketSocketConnection(host, port, secure, options);
+			
+			connectionBindings.add(connections[i].registerConnectionStateChangeObserver(new Action<SocketConnectionState>() {
+				@Override
+				public void execute(final SocketConnectionState connectionState) {
+					onConnectionStateChanged(index, connectionState);
+				}
+			}));
+		}
+		
+		this.ring = createRing();
+	}
+	
+	public void connect() {
+		synchronized (lock) {
+			connected = true;
+		}
+		
+		for (int i = 0; i < connections.length; i++) {
+			connections[i].connect();
+		}
+	}
+	
+	public void disconnect() {
+		synchronized (lock) {
+			connected = false;
+		}
+		
+		for (int i = 0; i < connections.length; i++) {
+			connections[i].disconnect();
+		}
+	}
+	
+	public Disposable subscribeToQuotes(final String symbol, final Action<Synchronizer<MutableQuote>> observer) {
+		if (symbol == null) {
+			throw new IllegalArgumentException("The \"symbol\" argument is required.");
+		}
+		
+		return subscribeToQuotes(Collections.singleton(symbol), observer);
+	}
+	
+	public Disposable subscribeToQuotes(final Collection<String> symbols, final Action<Synchronizer<MutableQuote>> observer) {
+		return subscribe(symbols, observer, SubscriptionType.Quotes);
+	}
+	
+	public void unsubscribeFromQuotes(final String symbol, final Action<Synchronizer<MutableQuote>> observer) {
+		if (symbol == null) {
+			throw new IllegalArgumentException("The \"symbol\" argument is required.");
+		}
+		
+		unsubscribeFromQuotes(Collections.singleton(symbol), observer);
+	}
+	
+	public void unsubscribeFromQuotes(final Collection<String> symbols, final Action<Synchronizer<MutableQuote>> observer) {
+		unsubscribe(getSymbolArray(symbols, observer), observer, SubscriptionType.Quotes);
+	}
+	
+	public Disposable subscribeToQuoteChanges(final String symbol, final Action<QuoteChange> observer) {
+		if (symbol == null) {
+			throw new IllegalArgumentException("The \"symbol\" argument is required.");
+		}
+		
+		return subscribeToQuoteChanges(Collections.singleton(symbol), observer);
+	}
+	
+	public Disposable subscribeToQuoteChanges(final Collection<String> symbols, final Action<QuoteChange> observer) {
+		return subscribe(symbols, observer, SubscriptionType.QuoteChanges);
+	}
+	
+	public void unsubscribeFromQuoteChanges(final String symbol, final Action<QuoteChange> observer) {
+		if (symbol == null) {
+			throw new IllegalArgumentException("The \"symbol\" argument is required.");
+		}
+		
+		unsubscribeFromQuoteChanges(Collections.singleton(symbol), observer);
+	}
+	
+	public void unsubscribeFromQuoteChanges(final Collection<String> symbols, final Action<QuoteChange> observer) {
+		unsubscribe(getSymbolArray(symbols, observer), observer, SubscriptionType.QuoteChanges);
+	}
+	
+	public Disposable subscribeToPriceChanges(final String symbol, final Action<Synchronizer<MutableQuote>> observer) {
+		if (symbol == null) {
+			throw new IllegalArgumentException("The \"symbol\" argument is required.");
+		}
+		
+		return subscribeToPriceChanges(Collections.singleton(symbol), observer);
+	}
+	
+	public Disposable subscribeToPriceChanges(final Collection<String> symbols, final Action<Synchronizer<MutableQuote>> observer) {
+		return subscribe(symbols, observer, SubscriptionType.PriceChanges);
+	}
+	
+	public void unsubscribeFromPriceChanges(final String symbol, final Action<Synchronizer<MutableQuote>> observer) {
+		if (symbol == null) {
+			throw new IllegalArgumentException("The \"symbol\" argument is required.");
+		}
+		
+		unsubscribeFromPriceChanges(Collections.singleton(symbol), observer);
+	}
+	
+	public void unsubscribeFromPriceChanges(final Collection<String> symbols, final Action<Synchronizer<MutableQuote>> observer) {
+		unsubscribe(getSymbolArray(symbols, observer), observer, SubscriptionType.PriceChanges);
+	}
+	
+	public void requestProfile(final String symbol, final Action<Profile> callback) {
+		requestProfile(symbol, callback, null);
+	}
+	
+	public void requestProfile(final String symbol, final Action<Profile> callback, final Action<RequestFailure> failureCallback) {
+		if (symbol == null) {
+			throw new IllegalArgumentException("The \"symbol\" argument is required.");
+		}
+		
+		getConnection(symbol).requestProfile(symbol, callback, failureCallback);
+	}
+	
+	public ProfileBatch requestProfiles(final Collection<String> symbols) {
+		if (symbols == null) {
+			throw new IllegalArgumentException("The \"symbols\" argument is required.");
+		}
+		
+		final Set<String> distinct = new LinkedHashSet<String>(symbols);
+		
+		if (distinct.contains(null)) {
+			throw new IllegalArgumentException("The \"symbols\" argument cannot contain null.");
+		}
+		
+		final ProfileBatch batch = new ProfileBatch(distinct.size());
+		
+		for (final String symbol : distinct) {
+			getConnection(symbol).requestProfile(symbol, batch.getCollector(), batch.getFailureCollector(symbol));
+		}
+		
+		return batch;
+	}
+	
+	public VersionedQuote getVersionedQuote(final String symbol) {
+		if (symbol == null) {
+			throw new IllegalArgumentException("The \"symbol\" argument is required.");
+		}
+		
+		return getConnection(symbol).getVersionedQuote(symbol);
+	}
+	
+	/* The connection currently responsible for the symbol. */
+	public MarketSocketConnection getConnection(final String symbol) {
+		if (symbol == null) {
+			throw new IllegalArgumentException("The \"symbol\" argument is required.");
+		}
+		
+		synchronized (lock) {
+			final Integer assignment = assignments.get(symbol);
+			
+			return connections[assignment != null ? assignment.intValue() : locate(ring, symbol)];
+		}
+	}
+	
+	public int getSize() {
+		return connections.length;
+	}
+	
+	public MarketSocketConnection getConnection(final int index) {
+		return connections[index];
+	}
+	
+	public int getFailedCount() {
+		synchronized (lock) {
+			int returnVal = 0;
+			
+			for (int i = 0; i < failed.length; i++) {
+				if (failed[i]) {
+					returnVal++;
+				}
+			}
+			
+			return returnVal;
+		}
+	}
+	
+	public long getRebalanceCount() {
+		synchronized (lock) {
+			return rebalanceCount;
+		}
+	}
+	
+	/* The number of times a symbol's subscriptions were moved to another connection. */
+	public long getMovedCount() {
+		synchronized (lock) {
+			return movedCount;
+		}
+	}
+	
+	private Disposable subscribe(final Collection<String> symbols, final Object observer, final SubscriptionType type) {
+		final String[] copies = getSymbolArray(symbols, observer);
+		final PoolSubscription subscription = new PoolSubscription(type, observer);
+		
+		synchronized (lock) {
+			final Map<Integer, List<String>> groups = new HashMap<Integer, List<String>>();
+			
+			for (int i = 0; i < copies.length; i++) {
+				final String symbol = copies[i];
+				
+				List<PoolSubscription> list = subscriptions.get(symbol);
+				
+				if (list == null) {
+					subscriptions.put(symbol, list = new ArrayList<PoolSubscription>(2));
+				}
+				
+				list.add(subscription);
+				
+				Integer assignment = assignments.get(symbol);
+				
+				if (assignment == null) {
+					assignments.put(symbol, assignment = Integer.valueOf(locate(ring, symbol)));
+				}
+				
+				getGroup(groups, assignment).add(symbol);
+			}
+			
+			for (final Map.Entry<Integer, List<String>> group : groups.entrySet()) {
+				type.subscribe(connections[group.getKey().intValue()], group.getValue(), observer, true);
+			}
+		}
+		
+		return new Disposable() {
+			@Override
+			public void dispose() {
+				unsubscribe(copies, observer, type);
+			}
+		};
+	}
+	
+	private void unsubscribe(final String[] symbols, final Object observer, final SubscriptionType type) {
+		final PoolSubscription subscription = new PoolSubscription(type, observer);
+		
+		synchronized (lock) {
+			final Map<Integer, List<String>> groups = new HashMap<Integer, List<String>>();
+			
+			for (int i = 0; i < symbols.length; i++) {
+				final String symbol = symbols[i];
+				final List<PoolSubscription> list = subscriptions.get(symbol);
+				
+				if (list == null || !list.remove(subscription)) {
+					continue;
+				}
+				
+				getGroup(groups, assignments.get(symbol)).add(symbol);
+				
+				if (list.isEmpty()) {
+					subscriptions.remove(symbol);
+					assignments.remove(symbol);
+				}
+			}
+			
+			for (final Map.Entry<Integer, List<String>> group : groups.entrySet()) {
+				type.unsubscribe(connections[group.getKey().intValue()], group.getValue(), observer);
+			}
+		}
+	}
+	
+	private void onConnectionStateChanged(final int index, final SocketConnectionState connectionState) {
+		if (connectionState != SocketConnectionState.Connected && connectionState != SocketConnectionState.Disconnected) {
+			return;
+		}
+		
+		rebalancer.execute(new Runnable() {
+			@Override
+			public void run() {
+				synchronized (lock) {
+					final boolean lost = connectionState == SocketConnectionState.Disconnected && connected;
+					
+					if (failed[index] != lost) {
+						failed[index] = lost;
+						
+						logger.info("Pool connection {} to {} is {}, rebalancing.", index, host, lost ? "lost" : "restored");
+						
+						rebalance();
+					}
+				}
+			}
+		});
+	}
+	
+	private void rebalance() {
+		ring = createRing();
+		rebalanceCount++;
+		
+		final Iterator<Map.Entry<String, List<PoolSubscription>>> iterator = subscriptions.entrySet().iterator();
+		
+		while (iterator.hasNext()) {
+			final Map.Entry<String, List<PoolSubscription>> entry = iterator.next();
+			
+			final String symbol = entry.getKey();
+			final int source = assignments.get(symbol).intValue();
+			final int target = locate(ring, symbol);
+			
+			if (source != target) {
+				final List<String> symbols = Collections.singletonList(symbol);
+				final List<PoolSubscription> list = entry.getValue();
+				
+				for (int i = 0; i < list.size(); i++) {
+					final PoolSubscription subscription = list.get(i);
+					
+					subscription.getType().unsubscribe(connections[source], symbols, subscription.getObserver());
+					subscription.getType().subscribe(connections[target], symbols, subscription.getObserver(), false);
+				}
+				
+				assignments.put(symbol, Integer.valueOf(target));
+				
+				movedCount++;
+			}
+		}
+	}
+	
+	/* Includes every connection which has not been lost (or every connection, if all were lost). */
+	private TreeMap<Integer, Integer> createRing() {
+		final TreeMap<Integer, Integer> returnRef = new TreeMap<Integer, Integer>();
+		
+		boolean all = true;
+		
+		for (int i = 0; i < failed.length; i++) {
+			all = all && failed[i];
+		}
+		
+		for (int i = 0; i < connections.length; i++) {
+			if (all || !failed[i]) {
+				for (int j = 0; j < VIRTUAL_NODES; j++) {
+					returnRef.put(Integer.valueOf(hash(i * VIRTUAL_NODES + j)), Integer.valueOf(i));
+				}
+			}
+		}
+		
+		return returnRef;
+	}
+	
+	private static int locate(final TreeMap<Integer, Integer> ring, final String symbol) {
+		Map.Entry<Integer, Integer> entry = ring.ceilingEntry(Integer.valueOf(hash(symbol.hashCode())));
+		
+		if (entry == null) {
+			entry = ring.firstEntry();
+		}
+		
+		return entry.getValue().intValue();
+	}
+	
+	/* The MurmurHash3 finalizer, since similar symbols have similar String hash codes. */
+	private static int hash(final int value) {
+		int h = value;
+		
+		h ^= h >>> 16;
+		h *= 0x85ebca6b;
+		h ^= h >>> 13;
+		h *= 0xc2b2ae35;
+		h ^= h >>> 16;
+		
+		return h;
+	}
+	
+	private static List<String> getGroup(final Map<Integer, List<String>> groups, final Integer assignment) {
+		List<String> returnRef = groups.get(assignment);
+		
+		if (returnRef == null) {
+			groups.put(assignment, returnRef = new ArrayList<String>());
+		}
+		
+		return returnRef;
+	}
+	
+	private static String[] getSymbolArray(final Collection<String> symbols, final Object observer) {
+		if (symbols == null) {
+			throw new IllegalArgumentException("The \"symbols\" argument is required.");
+		}
+		
+		if (observer == null) {
+			throw new IllegalArgumentException("The \"observer\" argument is required.");
+		}
+		
+		final String[] returnRef = new LinkedHashSet<String>(symbols).toArray(new String[0]);
+		
+		if (Arrays.asList(returnRef).contains(null)) {
+			throw new IllegalArgumentException("The \"symbols\" argument cannot contain null.");
+		}
+		
+		return returnRef;
+	}
+	
+	@Override
+	public void dispose() {
+		rebalancer.shutdownNow();
+		
+		for (int i = 0; i < connectionBindings.size(); i++) {
+			connectionBindings.get(i).dispose();
+		}
+		
+		for (int i = 0; i < connections.length; i++) {
+			connections[i].dispose();
+		}
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("[MarketSocketConnectionPool (host: %s, size: %s)]", host, connections.length);
+	}
+	
+	private enum SubscriptionType {
+		Quotes {
+			@Override
+			@SuppressWarnings("unchecked")
+			public void subscribe(final MarketSocketConnection connection, final List<String> symbols, final Object observer, final boolean deliverCached) {
+				connection.subscribeToQuotes(symbols, (Action<Synchronizer<MutableQuote>>)observer, deliverCached);
+			}
+			
+			@Override
+			@SuppressWarnings("unchecked")
+			public void unsubscribe(final MarketSocketConnection connection, final List<String> symbols, final Object observer) {
+				connection.unsubscribeFromQuotes(symbols, (Action<Synchronizer<MutableQuote>>)observer);
+			}
+		},
+		QuoteChanges {
+			@Override
+			@SuppressWarnings("unchecked")
+			public void subscribe(final MarketSocketConnection connection, final List<String> symbols, final Object observer, final boolean deliverCached) {
+				connection.subscribeToQuoteChanges(symbols, (Action<QuoteChange>)observer, deliverCached);
+			}
+			
+			@Override
+			@SuppressWarnings("unchecked")
+			public void unsubscribe(final MarketSocketConnection connection, final List<String> symbols, final Object observer) {
+				connection.unsubscribeFromQuoteChanges(symbols, (Action<QuoteChange>)observer);
+			}
+		},
+		PriceChanges {
+			@Override
+			@SuppressWarnings("unchecked")
+			public void subscribe(final MarketSocketConnection connection, final List<String> symbols, final Object observer, final boolean deliverCached) {
+				connection.subscribeToPriceChanges(symbols, (Action<Synchronizer<MutableQuote>>)observer, deliverCached);
+			}
+			
+			@Override
+			@SuppressWarnings("unchecked")
+			public void unsubscribe(final MarketSocketConnection connection, final List<String> symbols, final Object observer) {
+				connection.unsubscribeFromPriceChanges(symbols, (Action<Synchronizer<MutableQuote>>)observer);
+			}
+		};
+		
+		public abstract void subscribe(final MarketSocketConnection connection, final List<String> symbols, final Object observer, final boolean deliverCached);
+		
+		public abstract void unsubscribe(final MarketSocketConnection connection, final List<String> symbols, final Object observer);
+	}
+	
+	private static final class PoolSubscription {
+		private final SubscriptionType type;
+		private final Object observer;
+		
+		public PoolSubscription(final SubscriptionType type, final Object observer) {
+			this.type = type;
+			this.observer = observer;
+		}
+		
+		public SubscriptionType getType() {
+			return type;
+		}
+		
+		public Object getObserver() {
+			return observer;
+		}
+		
+		@Override
+		public int hashCode() {
+			return type.hashCode() * 31 + observer.hashCode();
+		}
+		
+		@Override
+		public boolean equals(final Object candidate) {
+			final boolean returnVal;
+			
+			if (candidate == this) {
+				returnVal = true;
+			} else if (candidate instanceof PoolSubscription) {
+				final PoolSubscription typedCandidate = (PoolSubscription)candidate;
+				
+				returnVal = type == typedCandidate.getType() && observer.equals(typedCandidate.getObserver());
+			} else {
+				returnVal = false;
+			}
+			
+			return returnVal;
+		}
+	}
+}
@@ -0,0 +1,241 @@
+package com.barchart.streaming.connection;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.barchart.common.Action;
+import com.barchart.common.transport.RequestFailure;
+import com.barchart.streaming.data.Profile;
+
+/*
+ * The result of a request for several profiles. Completes once a profile has
+ * been received, or the request has failed, for every symbol; the result is
+ * keyed by symbol and omits failed symbols (see getFailedSymbols). Listeners
+ * run on the thread which completes the batch (or at once, if it has already
+ * completed).
+ */
+public final class ProfileBatch implements Future<Map<String, Profile>> {
+	private static final Logger logger;
+	
+	private final Map<String, Profile> profiles;
+	private final Set<String> failedSymbols;
+	private final List<Action<Map<String, Profile>>> listeners;
+	private final Object lock;
+	
+	private int remaining;
+	private boolean cancelled;
+	
+	private final Action<Profile> collector;
+	
+	static {
+		logger = LoggerFactory.getLogger(ProfileBatch.class);
+	}
+	
+	ProfileBatch(final int count) {
+		this.profiles = new LinkedHashMap<String, Profile>(Math.max(16, count * 2));
+		this.failedSymbols = new LinkedHashSet<String>();
+		this.listeners = new ArrayList<Action<Map<String, Profile>>>(2);
+		this.lock = new Object();
+		
+		this.remaining = count;
+		this.cancelled = false;
+		
+		this.collector = new Action<Profile>() {
+			@Override
+			public void execute(final Profile profile) {
+				collect(profile);
+			}
+		};
+	}
+	
+	Action<Profile> getCollector() {
+		return collector;
+	}
+	
+	Action<RequestFailure> getFailureCollector(final String symbol) {
+		return new Action<RequestFailure>() {
+			@Override
+			public void execute(final RequestFailure failure) {
+				collectFailure(symbol, failure);
+			}
+		};
+	}
+	
+	public Set<String> getFailedSymbols() {
+		synchronized (lock) {
+			return new LinkedHashSet<String>(failedSymbols);
+		}
+	}
+	
+	public int getRemainingCount() {
+		synchronized (lock) {
+			return remaining;
+		}
+	}
+	
+	public void addListener(final Action<Map<String, Profile>> listener) {
+		if (listener == null) {
+			throw new IllegalArgumentException("The \"listener\" argument is required.");
+		}
+		
+		final boolean execute;
+		
+		synchronized (lock) {
+			execute = remaining == 0 && !cancelled;
+			
+			if (!execute && !cancelled) {
+				listeners.add(listener);
+			}
+		}
+		
+		if (execute) {
+			deliver(listener);
+		}
+	}
+	
+	private void collect(final Profile profile) {
+		final boolean complete;
+		
+		synchronized (lock) {
+			if (cancelled || remaining == 0 || profiles.containsKey(profile.getSymbol()) || failedSymbols.contains(profile.getSymbol())) {
+				return;
+			}
+			
+			profiles.put(profile.getSymbol(), profile);
+			
+			remaining--;
+			complete = remaining == 0;
+			
+			if (complete) {
+				lock.notifyAll();
+			}
+		}
+		
+		if (complete) {
+			for (int i = 0; i < listeners.size(); i++) {
+				deliver(listeners.get(i));
+			}
+		}
+	}
+	
+	private void collectFailure(final String symbol, final RequestFailure failure) {
+		final boolean complete;
+		
+		synchronized (lock) {
+			if (cancelled || remaining == 0 || profiles.containsKey(symbol) || failedSymbols.contains(symbol)) {
+				return;
+			}
+			
+			failedSymbols.add(symbol);
+			
+			remaining--;
+			complete = remaining == 0;
+			
+			if (complete) {
+				lock.notifyAll();
+			}
+		}
+		
+		logger.warn("Unable to retrieve profile for {} ({}).", symbol, failure.getDescription());
+		
+		if (complete) {
+			for (int i = 0; i < listeners.size(); i++) {
+				deliver(listeners.get(i));
+			}
+		}
+	}
+	
+	private void deliver(final Action<Map<String, Profile>> listener) {
+		try {
+			listener.execute(Collections.unmodifiableMap(profiles));
+		} catch (Exception e) {
+			logger.error("Profile batch listener failed.", e);
+		}
+	}
+	
+	@Override
+	public boolean cancel(final boolean mayInterruptIfRunning) {
+		synchronized (lock) {
+			final boolean returnVal = remaining != 0 && !cancelled;
+			
+			if (returnVal) {
+				cancelled = true;
+				
+				listeners.clear();
+				lock.notifyAll();
+			}
+			
+			return returnVal;
+		}
+	}
+	
+	@Override
+	public boolean isCancelled() {
+		synchronized (lock) {
+			return cancelled;
+		}
+	}
+	
+	@Override
+	public boolean isDone() {
+		synchronized (lock) {
+			return cancelled || remaining == 0;
+		}
+	}
+	
+	@Override
+	public Map<String, Profile> get() throws InterruptedException, ExecutionException {
+		synchronized (lock) {
+			while (remaining != 0 && !cancelled) {
+				lock.wait();
+			}
+			
+			return getResult();
+		}
+	}
+	
+	@Override
+	public Map<String, Profile> get(final long timeout, final TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+		final long deadline = System.nanoTime() + unit.toNanos(timeout);
+		
+		synchronized (lock) {
+			while (remaining != 0 && !cancelled) {
+				final long wait = deadline - System.nanoTime();
+				
+				if (wait <= 0) {
+					throw new TimeoutException(String.format("Timed out waiting for %s profile(s).", remaining));
+				}
+				
+				TimeUnit.NANOSECONDS.timedWait(lock, wait);
+			}
+			
+			return getResult();
+		}
+	}
+	
+	private Map<String, Profile> getResult() {
+		if (cancelled) {
+			throw new CancellationException("The profile batch was cancelled.");
+		}
+		
+		return Collections.unmodifiableMap(profiles);
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("[ProfileBatch (remaining: %s)]", getRemainingCount());
+	}
+}
@@ -0,0 +1,228 @@
+package com.barchart.streaming.connection;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.barchart.common.Action;
+import com.barchart.common.transport.RequestFailure;
+import com.barchart.streaming.data.Profile;
+
+/*
+ * A bounded cache of profiles. Entries expire after a fixed time and the least
+ * recently used entry is evicted when the cache is full. Callers waiting for
+ * the same uncached symbol share a single pending request.
+ */
+public final class ProfileCache {
+	private final int capacity;
+	private final long expiration;
+	
+	private final LinkedHashMap<String, CachedProfile> entries;
+	private final Map<String, PendingRequest> pending;
+	
+	private long hitCount;
+	private long missCount;
+	private long evictionCount;
+	private long sharedCount;
+	
+	public ProfileCache(final int capacity, final long expiration) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("The \"capacity\" argument must be positive.");
+		}
+		
+		if (expiration < 1) {
+			throw new IllegalArgumentException("The \"expiration\" argument must be positive.");
+		}
+		
+		this.capacity = capacity;
+		this.expiration = expiration;
+		
+		this.entries = new LinkedHashMap<String, CachedProfile>(64, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+			
+			@Override
+			protected boolean removeEldestEntry(final Map.Entry<String, CachedProfile> eldest) {
+				final boolean returnVal = size() > ProfileCache.this.capacity;
+				
+				if (returnVal) {
+					evictionCount++;
+				}
+				
+				return returnVal;
+			}
+		};
+		
+		this.pending = new HashMap<String, PendingRequest>();
+		
+		this.hitCount = 0;
+		this.missCount = 0;
+		this.evictionCount = 0;
+		this.sharedCount = 0;
+	}
+	
+	public synchronized Profile get(final String symbol) {
+		if (symbol == null) {
+			throw new IllegalArgumentException("The \"symbol\" argument is required.");
+		}
+		
+		final CachedProfile entry = entries.get(symbol);
+		
+		final Profile returnRef;
+		
+		if (entry == null) {
+			returnRef = null;
+		} else if (entry.getExpiration() < System.currentTimeMillis()) {
+			entries.remove(symbol);
+			
+			returnRef = null;
+		} else {
+			returnRef = entry.getProfile();
+		}
+		
+		if (returnRef != null) {
+			hitCount++;
+		} else {
+			missCount++;
+		}
+		
+		return returnRef;
+	}
+	
+	/* Returns true if the caller must send a request for the symbol. */
+	synchronized boolean await(final String symbol, final Action<Profile> callback, final Action<RequestFailure> failureCallback) {
+		PendingRequest request = pending.get(symbol);
+		
+		final boolean returnVal;
+		
+		if (request == null) {
+			request = new PendingRequest();
+			
+			pending.put(symbol, request);
+			
+			returnVal = true;
+		} else {
+			sharedCount++;
+			
+			returnVal = false;
+		}
+		
+		request.getCallbacks().add(callback);
+		
+		if (failureCallback != null) {
+			request.getFailureCallbacks().add(failureCallback);
+		}
+		
+		return returnVal;
+	}
+	
+	/* Stores the profile, returning the callbacks which were waiting for it. */
+	synchronized List<Action<Profile>> complete(final Profile profile) {
+		entries.put(profile.getSymbol(), new CachedProfile(profile, System.currentTimeMillis() + expiration));
+		
+		final PendingRequest request = pending.remove(profile.getSymbol());
+		
+		final List<Action<Profile>> returnRef;
+		
+		if (request != null) {
+			returnRef = request.getCallbacks();
+		} else {
+			returnRef = null;
+		}
+		
+		return returnRef;
+	}
+	
+	/* Abandons the pending request, returning the failure callbacks which were waiting for it. */
+	synchronized List<Action<RequestFailure>> fail(final String symbol) {
+		final PendingRequest request = pending.remove(symbol);
+		
+		final List<Action<RequestFailure>> returnRef;
+		
+		if (request != null) {
+			returnRef = request.getFailureCallbacks();
+		} else {
+			returnRef = null;
+		}
+		
+		return returnRef;
+	}
+	
+	public int getCapacity() {
+		return capacity;
+	}
+	
+	public long getExpiration() {
+		return expiration;
+	}
+	
+	public synchronized int getSize() {
+		return entries.size();
+	}
+	
+	public synchronized int getPendingCount() {
+		return pending.size();
+	}
+	
+	public synchronized long getHitCount() {
+		return hitCount;
+	}
+	
+	public synchronized long getMissCount() {
+		return missCount;
+	}
+	
+	public synchronized long getEvictionCount() {
+		return evictionCount;
+	}
+	
+	public synchronized long getSharedCount() {
+		return sharedCount;
+	}
+	
+	public synchronized void clear() {
+		entries.clear();
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("[ProfileCache (capacity: %s, expiration: %s)]", capacity, expiration);
+	}
+	
+	private static final class CachedProfile {
+		private final Profile profile;
+		private final long expiration;
+		
+		public CachedProfile(final Profile profile, final long expiration) {
+			this.profile = profile;
+			this.expiration = expiration;
+		}
+		
+		public Profile getProfile() {
+			return profile;
+		}
+		
+		public long getExpiration() {
+			return expiration;
+		}
+	}
+	
+	private static final class PendingRequest {
+		private final List<Action<Profile>> callbacks;
+		private final List<Action<RequestFailure>> failureCallbacks;
+		
+		public PendingRequest() {
+			this.callbacks = new ArrayList<Action<Profile>>(2);
+			this.failureCallbacks = new ArrayList<Action<RequestFailure>>(2);
+		}
+		
+		public List<Action<Profile>> getCallbacks() {
+			return callbacks;
+		}
+		
+		public List<Action<RequestFailure>> getFailureCallbacks() {
+			return failureCallbacks;
+		}
+	}
+}
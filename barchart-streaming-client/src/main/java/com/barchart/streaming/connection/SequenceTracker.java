@@ -0,0 +1,219 @@
+package com.barchart.streaming.connection;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.barchart.common.Action;
+import com.barchart.common.Disposable;
+import com.barchart.common.data.IndexedArray;
+import com.barchart.common.messaging.HashedWheelTimer;
+
+/*
+ * Tracks the sequence number each symbol's next delta is expected to carry.
+ * A snapshot establishes the sequence; a delta which skips ahead is a gap,
+ * after which the symbol is stale and its deltas are discarded until the
+ * next snapshot. Until it arrives, the recovery handler is invoked (on the
+ * timer's thread) each time the recovery timeout passes, to request it again.
+ * Deltas for a symbol are expected to be checked in order (i.e. on one thread
+ * at a time).
+ */
+final class SequenceTracker implements Disposable {
+	static final int ACCEPT = 0;
+	static final int GAP = 1;
+	static final int DISCARD = 2;
+	
+	private final long recoveryTimeout;
+	private final HashedWheelTimer timer;
+	private final Action<Integer> recoveryHandler;
+	
+	private final IndexedArray<SymbolSequence> sequences;
+	
+	private final AtomicLong gapCount;
+	private final AtomicLong discardedCount;
+	private final AtomicLong recoveredCount;
+	
+	public SequenceTracker(final long recoveryTimeout, final HashedWheelTimer timer, final Action<Integer> recoveryHandler) {
+		if (recoveryTimeout < 1) {
+			throw new IllegalArgumentException("The \"recoveryTimeout\" argument must be positive.");
+		}
+		
+		if (timer == null) {
+			throw new IllegalArgumentException("The \"timer\" argument is required.");
+		}
+		
+		if (recoveryHandler == null) {
+			throw new IllegalArgumentException("The \"recoveryHandler\" argument is required.");
+		}
+		
+		this.recoveryTimeout = recoveryTimeout;
+		this.timer = timer;
+		this.recoveryHandler = recoveryHandler;
+		
+		this.sequences = new IndexedArray<SymbolSequence>(64);
+		
+		this.gapCount = new AtomicLong(0L);
+		this.discardedCount = new AtomicLong(0L);
+		this.recoveredCount = new AtomicLong(0L);
+	}
+	
+	public void onSnapshot(final int symbolId, final Integer sequence) {
+		SymbolSequence state = sequences.get(symbolId);
+		
+		if (state == null) {
+			sequences.set(symbolId, state = new SymbolSequence());
+		}
+		
+		if (state.getIsStale()) {
+			recoveredCount.incrementAndGet();
+		}
+		
+		state.reset(sequence != null ? sequence.longValue() + 1 : SymbolSequence.UNKNOWN);
+	}
+	
+	public int onDelta(final int symbolId, final Integer sequence) {
+		final SymbolSequence state = sequences.get(symbolId);
+		
+		final int returnVal;
+		
+		if (state == null || sequence == null) {
+			returnVal = ACCEPT;
+		} else if (state.getIsStale()) {
+			returnVal = DISCARD;
+		} else {
+			final long expected = state.getExpected();
+			final long candidate = sequence.longValue();
+			
+			if (expected == SymbolSequence.UNKNOWN || candidate == expected) {
+				state.setExpected(candidate + 1);
+				
+				returnVal = ACCEPT;
+			} else if (candidate < expected) {
+				returnVal = DISCARD;
+			} else {
+				state.setIsStale(true);
+				
+				gapCount.incrementAndGet();
+				
+				scheduleRecovery(symbolId, state);
+				
+				returnVal = GAP;
+			}
+		}
+		
+		if (returnVal == DISCARD) {
+			discardedCount.incrementAndGet();
+		}
+		
+		return returnVal;
+	}
+	
+	private void scheduleRecovery(final int symbolId, final SymbolSequence state) {
+		synchronized (state) {
+			state.cancelRecovery();
+			
+			if (state.getIsStale()) {
+				state.setRecovery(timer.schedule(new Runnable() {
+					@Override
+					public void run() {
+						onRecoveryTimeout(symbolId, state);
+					}
+				}, recoveryTimeout));
+			}
+		}
+	}
+	
+	private void onRecoveryTimeout(final int symbolId, final SymbolSequence state) {
+		if (state.getIsStale()) {
+			recoveryHandler.execute(Integer.valueOf(symbolId));
+			
+			scheduleRecovery(symbolId, state);
+		}
+	}
+	
+	/* After reconnecting, the sequence of each symbol is re-established by its next snapshot (or delta). */
+	public void invalidate() {
+		for (int i = 0; i < sequences.getLength(); i++) {
+			final SymbolSequence state = sequences.get(i);
+			
+			if (state != null) {
+				state.reset(SymbolSequence.UNKNOWN);
+			}
+		}
+	}
+	
+	@Override
+	public void dispose() {
+		invalidate();
+	}
+	
+	public boolean getIsStale(final int symbolId) {
+		final SymbolSequence state = sequences.get(symbolId);
+		
+		return state != null && state.getIsStale();
+	}
+	
+	public long getGapCount() {
+		return gapCount.get();
+	}
+	
+	public long getDiscardedCount() {
+		return discardedCount.get();
+	}
+	
+	public long getRecoveredCount() {
+		return recoveredCount.get();
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("[SequenceTracker (gapCount: %s, discardedCount: %s)]", gapCount.get(), discardedCount.get());
+	}
+	
+	private static final class SymbolSequence {
+		private static final long UNKNOWN = Long.MIN_VALUE;
+		
+		private volatile long expected;
+		private volatile boolean stale;
+		private HashedWheelTimer.Timeout recovery;
+		
+		public SymbolSequence() {
+			this.expected = UNKNOWN;
+			this.stale = false;
+			this.recovery = null;
+		}
+		
+		public long getExpected() {
+			return expected;
+		}
+		
+		public void setExpected(final long value) {
+			expected = value;
+		}
+		
+		public boolean getIsStale() {
+			return stale;
+		}
+		
+		public void setIsStale(final boolean value) {
+			stale = value;
+		}
+		
+		public void setRecovery(final HashedWheelTimer.Timeout value) {
+			recovery = value;
+		}
+		
+		public void cancelRecovery() {
+			if (recovery != null) {
+				recovery.cancel();
+				
+				recovery = null;
+			}
+		}
+		
+		public synchronized void reset(final long value) {
+			expected = value;
+			stale = false;
+			
+			cancelRecovery();
+		}
+	}
+}
@@ -0,0 +1,161 @@
+package com.barchart.streaming.connection;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/*
+ * Gathers subscription changes for a window of time. A change which reverses
+ * a pending change for the same symbol cancels it; when the window closes, the
+ * surviving changes are sent as (at most) one subscribe and one unsubscribe.
+ */
+abstract class SubscriptionCoalescer {
+	private static final Logger logger;
+	
+	private final String name;
+	private final ScheduledExecutorService scheduler;
+	private final long window;
+	
+	private Map<String, Boolean> changes;
+	private final Object lock;
+	
+	private boolean scheduled;
+	
+	private long changeCount;
+	private long cancelledCount;
+	private long flushCount;
+	
+	private final Runnable flusher;
+	
+	static {
+		logger = LoggerFactory.getLogger(SubscriptionCoalescer.class);
+	}
+	
+	public SubscriptionCoalescer(final String name, final ScheduledExecutorService scheduler, final long window) {
+		this.name = name;
+		this.scheduler = scheduler;
+		this.window = window;
+		
+		this.changes = new LinkedHashMap<String, Boolean>();
+		this.lock = new Object();
+		
+		this.scheduled = false;
+		
+		this.changeCount = 0;
+		this.cancelledCount = 0;
+		this.flushCount = 0;
+		
+		this.flusher = new Runnable() {
+			@Override
+			public void run() {
+				flush();
+			}
+		};
+	}
+	
+	protected abstract void send(final String[] symbols, final boolean subscribe);
+	
+	public void change(final List<String> symbols, final boolean subscribe) {
+		final boolean schedule;
+		
+		synchronized (lock) {
+			for (int i = 0; i < symbols.size(); i++) {
+				final String symbol = symbols.get(i);
+				final Boolean pending = changes.remove(symbol);
+				
+				if (pending == null || pending.booleanValue() == subscribe) {
+					changes.put(symbol, Boolean.valueOf(subscribe));
+				} else {
+					cancelledCount++;
+				}
+				
+				changeCount++;
+			}
+			
+			schedule = !scheduled;
+			scheduled = true;
+		}
+		
+		if (schedule) {
+			try {
+				scheduler.schedule(flusher, window, TimeUnit.MILLISECONDS);
+			} catch (RejectedExecutionException e) {
+				logger.debug("Unable to schedule {} subscription changes, the scheduler has been shut down.", name);
+				
+				synchronized (lock) {
+					scheduled = false;
+				}
+			}
+		}
+	}
+	
+	public int getPendingCount() {
+		synchronized (lock) {
+			return changes.size();
+		}
+	}
+	
+	public long getChangeCount() {
+		synchronized (lock) {
+			return changeCount;
+		}
+	}
+	
+	public long getCancelledCount() {
+		synchronized (lock) {
+			return cancelledCount;
+		}
+	}
+	
+	public long getFlushCount() {
+		synchronized (lock) {
+			return flushCount;
+		}
+	}
+	
+	private void flush() {
+		final Map<String, Boolean> flushed;
+		
+		synchronized (lock) {
+			flushed = changes;
+			
+			changes = new LinkedHashMap<String, Boolean>();
+			scheduled = false;
+			
+			if (!flushed.isEmpty()) {
+				flushCount++;
+			}
+		}
+		
+		final List<String> added = new ArrayList<String>(flushed.size());
+		final List<String> removed = new ArrayList<String>(flushed.size());
+		
+		for (final Map.Entry<String, Boolean> entry : flushed.entrySet()) {
+			if (entry.getValue().booleanValue()) {
+				added.add(entry.getKey());
+			} else {
+				removed.add(entry.getKey());
+			}
+		}
+		
+		if (!removed.isEmpty()) {
+			send(removed.toArray(new String[removed.size()]), false);
+		}
+		
+		if (!added.isEmpty()) {
+			send(added.toArray(new String[added.size()]), true);
+		}
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("[SubscriptionCoalescer (name: %s, window: %s)]", name, window);
+	}
+}
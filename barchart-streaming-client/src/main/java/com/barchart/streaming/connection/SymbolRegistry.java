@@ -0,0 +1,100 @@
+package com.barchart.streaming.connection;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/*
+ * Assigns each symbol a dense, stable integer identifier (starting at zero).
+ * Identifiers are never reused, so consumers may use them to index their own
+ * arrays.
+ */
+public final class SymbolRegistry {
+	private final ConcurrentMap<String, Integer> ids;
+	private volatile String[] symbols;
+	private int size;
+	
+	public SymbolRegistry() {
+		this.ids = new ConcurrentHashMap<String, Integer>(64, 0.75f, 2);
+		this.symbols = new String[64];
+		this.size = 0;
+	}
+	
+	public int register(final String symbol) {
+		if (symbol == null) {
+			throw new IllegalArgumentException("The \"symbol\" argument is required.");
+		}
+		
+		final Integer id = ids.get(symbol);
+		
+		final int returnVal;
+		
+		if (id != null) {
+			returnVal = id.intValue();
+		} else {
+			returnVal = assign(symbol);
+		}
+		
+		return returnVal;
+	}
+	
+	public int getId(final String symbol) {
+		if (symbol == null) {
+			throw new IllegalArgumentException("The \"symbol\" argument is required.");
+		}
+		
+		final Integer id = ids.get(symbol);
+		
+		return id != null ? id.intValue() : -1;
+	}
+	
+	public String getSymbol(final int id) {
+		final String[] current = symbols;
+		
+		final String returnRef;
+		
+		if (id >= 0 && id < current.length) {
+			returnRef = current[id];
+		} else {
+			returnRef = null;
+		}
+		
+		return returnRef;
+	}
+	
+	public synchronized int getSize() {
+		return size;
+	}
+	
+	private synchronized int assign(final String symbol) {
+		final Integer existing = ids.get(symbol);
+		
+		final int returnVal;
+		
+		if (existing != null) {
+			returnVal = existing.intValue();
+		} else {
+			returnVal = size++;
+			
+			if (returnVal == symbols.length) {
+				final String[] replacement = new String[symbols.length * 2];
+				
+				System.arraycopy(symbols, 0, replacement, 0, symbols.length);
+				
+				replacement[returnVal] = symbol;
+				
+				symbols = replacement;
+			} else {
+				symbols[returnVal] = symbol;
+			}
+			
+			ids.put(symbol, Integer.valueOf(returnVal));
+		}
+		
+		return returnVal;
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("[SymbolRegistry (size: %s)]", getSize());
+	}
+}
@@ -0,0 +1,67 @@
+package com.barchart.streaming.connection.synchronizers;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.barchart.streaming.data.QuoteField;
+
+enum QuoteProperty {
+	Sequence("sequence", QuoteField.SEQUENCE),
+	Online("online", QuoteField.ONLINE),
+	Flag("flag", QuoteField.FLAG),
+	Mode("mode", QuoteField.MODE),
+	Session("session", QuoteField.SESSION),
+	Day("day", QuoteField.DAY),
+	DayNum("dayNum", QuoteField.DAY_NUM),
+	LastPrice("lastPrice", QuoteField.LAST_PRICE),
+	PreviousPrice("previousPrice", QuoteField.PREVIOUS_PRICE),
+	TradePrice("tradePrice", QuoteField.TRADE_PRICE),
+	TradeSize("tradeSize", QuoteField.TRADE_SIZE),
+	BidPrice("bidPrice", QuoteField.BID_PRICE),
+	BidSize("bidSize", QuoteField.BID_SIZE),
+	AskPrice("askPrice", QuoteField.ASK_PRICE),
+	AskSize("askSize", QuoteField.ASK_SIZE),
+	OpenPrice("openPrice", QuoteField.OPEN_PRICE),
+	HighPrice("highPrice", QuoteField.HIGH_PRICE),
+	LowPrice("lowPrice", QuoteField.LOW_PRICE),
+	SettlementPrice("settlementPrice", QuoteField.SETTLEMENT_PRICE),
+	Volume("volume", QuoteField.VOLUME),
+	OpenInterest("openInterest", QuoteField.OPEN_INTEREST),
+	Time("time", QuoteField.TIME),
+	TimeDisplay("timeDisplay", QuoteField.TIME_DISPLAY);
+	
+	private static final Map<String, QuoteProperty> properties;
+	
+	private final String propertyName;
+	private final int field;
+	
+	static {
+		properties = new HashMap<String, QuoteProperty>(64);
+		
+		for (QuoteProperty p : QuoteProperty.values()) {
+			properties.put(p.getPropertyName(), p);
+		}
+	}
+	
+	QuoteProperty(final String propertyName, final int field) {
+		this.propertyName = propertyName;
+		this.field = field;
+	}
+	
+	public String getPropertyName() {
+		return propertyName;
+	}
+	
+	public int getField() {
+		return field;
+	}
+	
+	public static QuoteProperty forPropertyName(final String propertyName) {
+		return properties.get(propertyName);
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("[QuoteProperty (propertyName: %s)]", propertyName);
+	}
+}
@@ -1,15 +1,23 @@
 package com.barchart.streaming.connection.synchronizers;
 
-import org.json.JSONArray;
+import java.util.Iterator;
+
 import org.json.JSONObject;
 
 import com.barchart.common.data.Synchronizer;
+import com.barchart.streaming.data.MutablePrimitiveQuote;
 import com.barchart.streaming.data.MutableQuote;
+import com.barchart.streaming.data.QuoteField;
 
 public class QuoteUpdateSynchronizer implements Synchronizer<MutableQuote> {
+	private static final int PRICE_FIELDS = QuoteField.LAST_PRICE | QuoteField.PREVIOUS_PRICE;
+	private static final int PRICE_CHANGE_FIELDS = QuoteField.PRICE_CHANGE | QuoteField.PRICE_CHANGE_PERCENT;
+	
 	public final String symbol;
 	public final JSONObject data;
 	
+	private int fieldMask;
+	
 	public QuoteUpdateSynchronizer(final String symbol, final JSONObject data) {
 		if (symbol == null) {
 			throw new IllegalArgumentException("The \"symbol\" argument is required.");
@@ -21,6 +29,13 @@ public class QuoteUpdateSynchronizer implements Synchronizer<MutableQuote> {
 		
 		this.symbol = symbol;
 		this.data = data;
+		
+		this.fieldMask = QuoteField.NONE;
+	}
+	
+	/* The fields changed by the most recent call to synchronize. */
+	public int getFieldMask() {
+		return fieldMask;
 	}
 
 	@Override
@@ -33,17 +48,30 @@ public class QuoteUpdateSynchronizer implements Synchronizer<MutableQuote> {
 			throw new IllegalArgumentException(String.format("The synchronizer does not apply to the \"target\" (target symbol: %s).", target.getSymbol()));
 		}
 		
-		final JSONArray names = data.names();
-			
-		for (int i = 0; i < names.length(); i++) {
-			final String name = names.optString(i);
+		if (target instanceof MutablePrimitiveQuote) {
+			synchronizePrimitive((MutablePrimitiveQuote)target);
+		} else {
+			synchronizeBoxed(target);
+		}
+	}
+	
+	private void synchronizeBoxed(final MutableQuote target) {
+		final Iterator<?> names = data.keys();
+		
+		int fields = QuoteField.NONE;
+		
+		while (names.hasNext()) {
+			final String name = (String)names.next();
+			final QuoteProperty property = QuoteProperty.forPropertyName(name);
 			
-			if (name != null) {
-				synchronizeProperty(target, name); 
+			if (property != null) {
+				synchronizeProperty(target, property, name);
+				
+				fields |= property.getField();
 			}
 		}
 		
-		if (data.has("lastPrice") || data.has("previousPrice")) {
+		if ((fields & PRICE_FIELDS) != 0) {
 			final Double lastPrice = target.getLastPrice();
 			final Double previousPrice = target.getPreviousPrice();
 			
@@ -65,103 +93,220 @@ public class QuoteUpdateSynchronizer implements Synchronizer<MutableQuote> {
 			
 			target.setPriceChange(priceChange);
 			target.setPriceChangePercent(priceChangePercent);
+			
+			fields |= PRICE_CHANGE_FIELDS;
 		}
+		
+		fieldMask = fields;
 	}
 	
-	private void synchronizeProperty(final MutableQuote target, final String name) {
-		switch (name) {
-			case "sequence": {
-				target.setSequence(Integer.valueOf(data.optInt(name)));
+	private void synchronizePrimitive(final MutablePrimitiveQuote target) {
+		final Iterator<?> names = data.keys();
+		
+		int fields = QuoteField.NONE;
+		
+		while (names.hasNext()) {
+			final String name = (String)names.next();
+			final QuoteProperty property = QuoteProperty.forPropertyName(name);
+			
+			if (property != null) {
+				synchronizePrimitiveProperty(target, property, name);
+				
+				fields |= property.getField();
+			}
+		}
+		
+		if ((fields & PRICE_FIELDS) != 0) {
+			if (target.hasLastPrice() && target.hasPreviousPrice()) {
+				final double lastPrice = target.getLastPriceAsDouble();
+				final double previousPrice = target.getPreviousPriceAsDouble();
+				final double priceChange = lastPrice - previousPrice;
+				
+				target.setPriceChange(priceChange);
+				
+				if (previousPrice != 0) {
+					target.setPriceChangePercent(priceChange / previousPrice);
+				} else {
+					target.clearPriceChangePercent();
+				}
+			} else {
+				target.clearPriceChange();
+				target.clearPriceChangePercent();
+			}
+			
+			fields |= PRICE_CHANGE_FIELDS;
+		}
+		
+		fieldMask = fields;
+	}
+	
+	private void synchronizePrimitiveProperty(final MutablePrimitiveQuote target, final QuoteProperty property, final String name) {
+		switch (property) {
+			case Sequence: {
+				target.setSequence(data.optInt(name));
 				break;
 			}
-			case "flag": {
-				target.setFlag(data.optString(name));
+			case DayNum: {
+				target.setDayNum(data.optInt(name));
+				break;
+			}
+			case LastPrice: {
+				target.setLastPrice(data.optDouble(name));
+				break;
+			}
+			case PreviousPrice: {
+				target.setPreviousPrice(data.optDouble(name));
+				break;
+			}
+			case TradePrice: {
+				target.setTradePrice(data.optDouble(name));
+				break;
+			}
+			case TradeSize: {
+				target.setTradeSize(data.optInt(name));
+				break;
+			}
+			case BidPrice: {
+				target.setBidPrice(data.optDouble(name));
+				break;
+			}
+			case BidSize: {
+				target.setBidSize(data.optInt(name));
+				break;
+			}
+			case AskPrice: {
+				target.setAskPrice(data.optDouble(name));
+				break;
+			}
+			case AskSize: {
+				target.setAskSize(data.optInt(name));
+				break;
+			}
+			case OpenPrice: {
+				target.setOpenPrice(data.optDouble(name));
+				break;
+			}
+			case HighPrice: {
+				target.setHighPrice(data.optDouble(name));
+				break;
+			}
+			case LowPrice: {
+				target.setLowPrice(data.optDouble(name));
 				break;
 			}
-			case "online": {
+			case SettlementPrice: {
+				target.setSettlementPrice(data.optDouble(name));
+				break;
+			}
+			case Volume: {
+				target.setVolume(data.optInt(name));
+				break;
+			}
+			case OpenInterest: {
+				target.setOpenInterest(data.optInt(name));
+				break;
+			}
+			default: {
+				synchronizeProperty(target, property, name);
+				break;
+			}
+		}
+	}
+	
+	private void synchronizeProperty(final MutableQuote target, final QuoteProperty property, final String name) {
+		switch (property) {
+			case Sequence: {
+				target.setSequence(Integer.valueOf(data.optInt(name)));
+				break;
+			}
+			case Online: {
 				target.setOnline(data.optBoolean(name));
 				break;
 			}
-			case "mode": {
+			case Flag: {
+				target.setFlag(data.optString(name));
+				break;
+			}
+			case Mode: {
 				target.setMode(data.optString(name));
 				break;
 			}
-			case "session": {
+			case Session: {
 				target.setSession(data.optString(name));
 				break;
 			}
-			case "day": {
+			case Day: {
 				target.setDay(data.optString(name));
 				break;
 			}
-			case "dayNum": {
+			case DayNum: {
 				target.setDayNum(Integer.valueOf(data.optInt(name)));
 				break;
 			}
-			case "lastPrice": {
+			case LastPrice: {
 				target.setLastPrice(Double.valueOf(data.optDouble(name)));
 				break;
 			}
-			case "previousPrice": {
+			case PreviousPrice: {
 				target.setPreviousPrice(Double.valueOf(data.optDouble(name)));
 				break;
 			}
-			case "tradePrice": {
+			case TradePrice: {
 				target.setTradePrice(Double.valueOf(data.optDouble(name)));
 				break;
 			}
-			case "tradeSize": {
+			case TradeSize: {
 				target.setTradeSize(Integer.valueOf(data.optInt(name)));
 				break;
 			}
-			case "bidPrice": {
+			case BidPrice: {
 				target.setBidPrice(Double.valueOf(data.optDouble(name)));
 				break;
 			}
-			case "bidSize": {
+			case BidSize: {
 				target.setBidSize(Integer.valueOf(data.optInt(name)));
 				break;
 			}
-			case "askPrice": {
+			case AskPrice: {
 				target.setAskPrice(Double.valueOf(data.optDouble(name)));
 				break;
 			}
-			case "askSize": {
+			case AskSize: {
 				target.setAskSize(Integer.valueOf(data.optInt(name)));
 				break;
 			}
-			case "openPrice": {
+			case OpenPrice: {
 				target.setOpenPrice(Double.valueOf(data.optDouble(name)));
 				break;
 			}
-			case "highPrice": {
+			case HighPrice: {
 				target.setHighPrice(Double.valueOf(data.optDouble(name)));
 				break;
 			}
-			case "lowPrice": {
+			case LowPrice: {
 				target.setLowPrice(Double.valueOf(data.optDouble(name)));
 				break;
 			}
-			case "settlementPrice": {
+			case SettlementPrice: {
 				target.setSettlementPrice(Double.valueOf(data.optDouble(name)));
 				break;
 			}
-			case "volume": {
+			case Volume: {
 				target.setVolume(Integer.valueOf(data.optInt(name)));
 				break;
 			}
-			case "openInterest": {
+			case OpenInterest: {
 				target.setOpenInterest(Integer.valueOf(data.optInt(name)));
 				break;
 			}
-			case "time": {
-				target.setTime(String.valueOf(data.optString(name)));
+			case Time: {
+				target.setTime(data.optString(name));
 				break;
 			}
-			case "timeDisplay": {
-				target.setTimeDisplay(String.valueOf(data.optString(name)));
+			case TimeDisplay: {
+				target.setTimeDisplay(data.optString(name));
 				break;
-			}			
+			}
 			default: {
 				break;
 			}
@@ -0,0 +1,47 @@
+package com.barchart.streaming.data;
+
+public interface MutablePrimitiveQuote extends PrimitiveQuote, MutableQuote {
+	void setSequence(int value);
+	void clearSequence();
+	
+	void setDayNum(int value);
+	void clearDayNum();
+	
+	void setLastPrice(double value);
+	void clearLastPrice();
+	void setPreviousPrice(double value);
+	void clearPreviousPrice();
+	
+	void setPriceChange(double value);
+	void clearPriceChange();
+	void setPriceChangePercent(double value);
+	void clearPriceChangePercent();
+	
+	void setTradePrice(double value);
+	void clearTradePrice();
+	void setTradeSize(int value);
+	void clearTradeSize();
+	
+	void setBidPrice(double value);
+	void clearBidPrice();
+	void setBidSize(int value);
+	void clearBidSize();
+	void setAskPrice(double value);
+	void clearAskPrice();
+	void setAskSize(int value);
+	void clearAskSize();
+	
+	void setOpenPrice(double value);
+	void clearOpenPrice();
+	void setHighPrice(double value);
+	void clearHighPrice();
+	void setLowPrice(double value);
+	void clearLowPrice();
+	void setSettlementPrice(double value);
+	void clearSettlementPrice();
+	
+	void setVolume(int value);
+	void clearVolume();
+	void setOpenInterest(int value);
+	void clearOpenInterest();
+}
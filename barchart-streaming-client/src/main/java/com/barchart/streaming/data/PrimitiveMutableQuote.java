@@ -0,0 +1,863 @@
+package com.barchart.streaming.data;
+
+import com.barchart.common.data.Synchronizer;
+
+/*
+ * A MutableQuote backed by primitive fields. A bitmask (see QuoteField) records
+ * which fields have a value, so the boxed getters can still return null. The
+ * primitive accessors avoid boxing entirely; their result is only meaningful
+ * when the corresponding "has" method returns true.
+ */
+public class PrimitiveMutableQuote implements MutablePrimitiveQuote {
+	private final String symbol;
+	
+	private int fieldMask;
+	
+	private int sequence;
+	private boolean online;
+		
+	private String flag;
+	private String mode;
+	private String session;
+		
+	private String day;
+	private int dayNum;
+		
+	private double lastPrice;
+	private double previousPrice;
+		
+	private double priceChange;
+	private double priceChangePercent;
+		
+	private double tradePrice;
+	private int tradeSize;
+		
+	private double bidPrice;
+	private int bidSize;
+	private double askPrice;
+	private int askSize;
+		
+	private double openPrice;
+	private double highPrice;
+	private double lowPrice;
+	private double settlementPrice;
+		
+	private int volume;
+	private int openInterest;
+		
+	private String time;
+	private String timeDisplay;
+	
+	public PrimitiveMutableQuote(final String symbol) {
+		this(symbol, null);
+	}
+	
+	public PrimitiveMutableQuote(final String symbol, final Synchronizer<MutableQuote> synchronizer) {
+		this.symbol = symbol;
+		
+		this.fieldMask = QuoteField.NONE;
+		
+		if (synchronizer != null) {
+			synchronizer.synchronize(this);
+		}
+	}
+	
+	@Override
+	public String getSymbol() {
+		return symbol;
+	}
+	
+	@Override
+	public int getFieldMask() {
+		return fieldMask;
+	}
+	
+	@Override
+	public boolean has(final int field) {
+		return (fieldMask & field) != 0;
+	}
+	
+	@Override
+	public Integer getSequence() {
+		return (fieldMask & QuoteField.SEQUENCE) != 0 ? Integer.valueOf(sequence) : null;
+	}
+	
+	@Override
+	public void setSequence(Integer value) {
+		if (value != null) {
+			setSequence(value.intValue());
+		} else {
+			clearSequence();
+		}
+	}
+	
+	@Override
+	public int getSequenceAsInt() {
+		return sequence;
+	}
+	
+	@Override
+	public void setSequence(int value) {
+		sequence = value;
+		fieldMask |= QuoteField.SEQUENCE;
+	}
+	
+	@Override
+	public void clearSequence() {
+		sequence = 0;
+		fieldMask &= ~QuoteField.SEQUENCE;
+	}
+	
+	@Override
+	public boolean hasSequence() {
+		return (fieldMask & QuoteField.SEQUENCE) != 0;
+	}
+	
+	@Override
+	public boolean getOnline() {
+		return online;
+	}
+	
+	@Override
+	public void setOnline(boolean value) {
+		online = value;
+		fieldMask |= QuoteField.ONLINE;
+	}
+	
+	@Override
+	public String getFlag() {
+		return flag;
+	}
+	
+	@Override
+	public void setFlag(String value) {
+		flag = value;
+		
+		if (value != null) {
+			fieldMask |= QuoteField.FLAG;
+		} else {
+			fieldMask &= ~QuoteField.FLAG;
+		}
+	}
+	
+	public boolean hasFlag() {
+		return (fieldMask & QuoteField.FLAG) != 0;
+	}
+	
+	@Override
+	public String getMode() {
+		return mode;
+	}
+	
+	@Override
+	public void setMode(String value) {
+		mode = value;
+		
+		if (value != null) {
+			fieldMask |= QuoteField.MODE;
+		} else {
+			fieldMask &= ~QuoteField.MODE;
+		}
+	}
+	
+	public boolean hasMode() {
+		return (fieldMask & QuoteField.MODE) != 0;
+	}
+	
+	@Override
+	public String getSession() {
+		return session;
+	}
+	
+	@Override
+	public void setSession(String value) {
+		session = value;
+		
+		if (value != null) {
+			fieldMask |= QuoteField.SESSION;
+		} else {
+			fieldMask &= ~QuoteField.SESSION;
+		}
+	}
+	
+	public boolean hasSession() {
+		return (fieldMask & QuoteField.SESSION) != 0;
+	}
+	
+	@Override
+	public String getDay() {
+		return day;
+	}
+	
+	@Override
+	public void setDay(String value) {
+		day = value;
+		
+		if (value != null) {
+			fieldMask |= QuoteField.DAY;
+		} else {
+			fieldMask &= ~QuoteField.DAY;
+		}
+	}
+	
+	public boolean hasDay() {
+		return (fieldMask & QuoteField.DAY) != 0;
+	}
+	
+	@Override
+	public Integer getDayNum() {
+		return (fieldMask & QuoteField.DAY_NUM) != 0 ? Integer.valueOf(dayNum) : null;
+	}
+	
+	@Override
+	public void setDayNum(Integer value) {
+		if (value != null) {
+			setDayNum(value.intValue());
+		} else {
+			clearDayNum();
+		}
+	}
+	
+	@Override
+	public int getDayNumAsInt() {
+		return dayNum;
+	}
+	
+	@Override
+	public void setDayNum(int value) {
+		dayNum = value;
+		fieldMask |= QuoteField.DAY_NUM;
+	}
+	
+	@Override
+	public void clearDayNum() {
+		dayNum = 0;
+		fieldMask &= ~QuoteField.DAY_NUM;
+	}
+	
+	@Override
+	public boolean hasDayNum() {
+		return (fieldMask & QuoteField.DAY_NUM) != 0;
+	}
+	
+	@Override
+	public Double getLastPrice() {
+		return (fieldMask & QuoteField.LAST_PRICE) != 0 ? Double.valueOf(lastPrice) : null;
+	}
+	
+	@Override
+	public void setLastPrice(Double value) {
+		if (value != null) {
+			setLastPrice(value.doubleValue());
+		} else {
+			clearLastPrice();
+		}
+	}
+	
+	@Override
+	public double getLastPriceAsDouble() {
+		return lastPrice;
+	}
+	
+	@Override
+	public void setLastPrice(double value) {
+		lastPrice = value;
+		fieldMask |= QuoteField.LAST_PRICE;
+	}
+	
+	@Override
+	public void clearLastPrice() {
+		lastPrice = 0;
+		fieldMask &= ~QuoteField.LAST_PRICE;
+	}
+	
+	@Override
+	public boolean hasLastPrice() {
+		return (fieldMask & QuoteField.LAST_PRICE) != 0;
+	}
+	
+	@Override
+	public Double getPreviousPrice() {
+		return (fieldMask & QuoteField.PREVIOUS_PRICE) != 0 ? Double.valueOf(previousPrice) : null;
+	}
+	
+	@Override
+	public void setPreviousPrice(Double value) {
+		if (value != null) {
+			setPreviousPrice(value.doubleValue());
+		} else {
+			clearPreviousPrice();
+		}
+	}
+	
+	@Override
+	public double getPreviousPriceAsDouble() {
+		return previousPrice;
+	}
+	
+	@Override
+	public void setPreviousPrice(double value) {
+		previousPrice = value;
+		fieldMask |= QuoteField.PREVIOUS_PRICE;
+	}
+	
+	@Override
+	public void clearPreviousPrice() {
+		previousPrice = 0;
+		fieldMask &= ~QuoteField.PREVIOUS_PRICE;
+	}
+	
+	@Override
+	public boolean hasPreviousPrice() {
+		return (fieldMask & QuoteField.PREVIOUS_PRICE) != 0;
+	}
+	
+	@Override
+	public Double getPriceChange() {
+		return (fieldMask & QuoteField.PRICE_CHANGE) != 0 ? Double.valueOf(priceChange) : null;
+	}
+	
+	@Override
+	public void setPriceChange(Double value) {
+		if (value != null) {
+			setPriceChange(value.doubleValue());
+		} else {
+			clearPriceChange();
+		}
+	}
+	
+	@Override
+	public double getPriceChangeAsDouble() {
+		return priceChange;
+	}
+	
+	@Override
+	public void setPriceChange(double value) {
+		priceChange = value;
+		fieldMask |= QuoteField.PRICE_CHANGE;
+	}
+	
+	@Override
+	public void clearPriceChange() {
+		priceChange = 0;
+		fieldMask &= ~QuoteField.PRICE_CHANGE;
+	}
+	
+	@Override
+	public boolean hasPriceChange() {
+		return (fieldMask & QuoteField.PRICE_CHANGE) != 0;
+	}
+	
+	@Override
+	public Double getPriceChangePercent() {
+		return (fieldMask & QuoteField.PRICE_CHANGE_PERCENT) != 0 ? Double.valueOf(priceChangePercent) : null;
+	}
+	
+	@Override
+	public void setPriceChangePercent(Double value) {
+		if (value != null) {
+			setPriceChangePercent(value.doubleValue());
+		} else {
+			clearPriceChangePercent();
+		}
+	}
+	
+	@Override
+	public double getPriceChangePercentAsDouble() {
+		return priceChangePercent;
+	}
+	
+	@Override
+	public void setPriceChangePercent(double value) {
+		priceChangePercent = value;
+		fieldMask |= QuoteField.PRICE_CHANGE_PERCENT;
+	}
+	
+	@Override
+	public void clearPriceChangePercent() {
+		priceChangePercent = 0;
+		fieldMask &= ~QuoteField.PRICE_CHANGE_PERCENT;
+	}
+	
+	@Override
+	public boolean hasPriceChangePercent() {
+		return (fieldMask & QuoteField.PRICE_CHANGE_PERCENT) != 0;
+	}
+	
+	@Override
+	public Double getTradePrice() {
+		return (fieldMask & QuoteField.TRADE_PRICE) != 0 ? Double.valueOf(tradePrice) : null;
+	}
+	
+	@Override
+	public void setTradePrice(Double value) {
+		if (value != null) {
+			setTradePrice(value.doubleValue());
+		} else {
+			clearTradePrice();
+		}
+	}
+	
+	@Override
+	public double getTradePriceAsDouble() {
+		return tradePrice;
+	}
+	
+	@Override
+	public void setTradePrice(double value) {
+		tradePrice = value;
+		fieldMask |= QuoteField.TRADE_PRICE;
+	}
+	
+	@Override
+	public void clearTradePrice() {
+		tradePrice = 0;
+		fieldMask &= ~QuoteField.TRADE_PRICE;
+	}
+	
+	@Override
+	public boolean hasTradePrice() {
+		return (fieldMask & QuoteField.TRADE_PRICE) != 0;
+	}
+	
+	@Override
+	public Integer getTradeSize() {
+		return (fieldMask & QuoteField.TRADE_SIZE) != 0 ? Integer.valueOf(tradeSize) : null;
+	}
+	
+	@Override
+	public void setTradeSize(Integer value) {
+		if (value != null) {
+			setTradeSize(value.intValue());
+		} else {
+			clearTradeSize();
+		}
+	}
+	
+	@Override
+	public int getTradeSizeAsInt() {
+		return tradeSize;
+	}
+	
+	@Override
+	public void setTradeSize(int value) {
+		tradeSize = value;
+		fieldMask |= QuoteField.TRADE_SIZE;
+	}
+	
+	@Override
+	public void clearTradeSize() {
+		tradeSize = 0;
+		fieldMask &= ~QuoteField.TRADE_SIZE;
+	}
+	
+	@Override
+	public boolean hasTradeSize() {
+		return (fieldMask & QuoteField.TRADE_SIZE) != 0;
+	}
+	
+	@Override
+	public Double getBidPrice() {
+		return (fieldMask & QuoteField.BID_PRICE) != 0 ? Double.valueOf(bidPrice) : null;
+	}
+	
+	@Override
+	public void setBidPrice(Double value) {
+		if (value != null) {
+			setBidPrice(value.doubleValue());
+		} else {
+			clearBidPrice();
+		}
+	}
+	
+	@Override
+	public double getBidPriceAsDouble() {
+		return bidPrice;
+	}
+	
+	@Override
+	public void setBidPrice(double value) {
+		bidPrice = value;
+		fieldMask |= QuoteField.BID_PRICE;
+	}
+	
+	@Override
+	public void clearBidPrice() {
+		bidPrice = 0;
+		fieldMask &= ~QuoteField.BID_PRICE;
+	}
+	
+	@Override
+	public boolean hasBidPrice() {
+		return (fieldMask & QuoteField.BID_PRICE) != 0;
+	}
+	
+	@Override
+	public Integer getBidSize() {
+		return (fieldMask & QuoteField.BID_SIZE) != 0 ? Integer.valueOf(bidSize) : null;
+	}
+	
+	@Override
+	public void setBidSize(Integer value) {
+		if (value != null) {
+			setBidSize(value.intValue());
+		} else {
+			clearBidSize();
+		}
+	}
+	
+	@Override
+	public int getBidSizeAsInt() {
+		return bidSize;
+	}
+	
+	@Override
+	public void setBidSize(int value) {
+		bidSize = value;
+		fieldMask |= QuoteField.BID_SIZE;
+	}
+	
+	@Override
+	public void clearBidSize() {
+		bidSize = 0;
+		fieldMask &= ~QuoteField.BID_SIZE;
+	}
+	
+	@Override
+	public boolean hasBidSize() {
+		return (fieldMask & QuoteField.BID_SIZE) != 0;
+	}
+	
+	@Override
+	public Double getAskPrice() {
+		return (fieldMask & QuoteField.ASK_PRICE) != 0 ? Double.valueOf(askPrice) : null;
+	}
+	
+	@Override
+	public void setAskPrice(Double value) {
+		if (value != null) {
+			setAskPrice(value.doubleValue());
+		} else {
+			clearAskPrice();
+		}
+	}
+	
+	@Override
+	public double getAskPriceAsDouble() {
+		return askPrice;
+	}
+	
+	@Override
+	public void setAskPrice(double value) {
+		askPrice = value;
+		fieldMask |= QuoteField.ASK_PRICE;
+	}
+	
+	@Override
+	public void clearAskPrice() {
+		askPrice = 0;
+		fieldMask &= ~QuoteField.ASK_PRICE;
+	}
+	
+	@Override
+	public boolean hasAskPrice() {
+		return (fieldMask & QuoteField.ASK_PRICE) != 0;
+	}
+	
+	@Override
+	public Integer getAskSize() {
+		return (fieldMask & QuoteField.ASK_SIZE) != 0 ? Integer.valueOf(askSize) : null;
+	}
+	
+	@Override
+	public void setAskSize(Integer value) {
+		if (value != null) {
+			setAskSize(value.intValue());
+		} else {
+			clearAskSize();
+		}
+	}
+	
+	@Override
+	public int getAskSizeAsInt() {
+		return askSize;
+	}
+	
+	@Override
+	public void setAskSize(int value) {
+		askSize = value;
+		fieldMask |= QuoteField.ASK_SIZE;
+	}
+	
+	@Override
+	public void clearAskSize() {
+		askSize = 0;
+		fieldMask &= ~QuoteField.ASK_SIZE;
+	}
+	
+	@Override
+	public boolean hasAskSize() {
+		return (fieldMask & QuoteField.ASK_SIZE) != 0;
+	}
+	
+	@Override
+	public Double getOpenPrice() {
+		return (fieldMask & QuoteField.OPEN_PRICE) != 0 ? Double.valueOf(openPrice) : null;
+	}
+	
+	@Override
+	public void setOpenPrice(Double value) {
+		if (value != null) {
+			setOpenPrice(value.doubleValue());
+		} else {
+			clearOpenPrice();
+		}
+	}
+	
+	@Override
+	public double getOpenPriceAsDouble() {
+		return openPrice;
+	}
+	
+	@Override
+	public void setOpenPrice(double value) {
+		openPrice = value;
+		fieldMask |= QuoteField.OPEN_PRICE;
+	}
+	
+	@Override
+	public void clearOpenPrice() {
+		openPrice = 0;
+		fieldMask &= ~QuoteField.OPEN_PRICE;
+	}
+	
+	@Override
+	public boolean hasOpenPrice() {
+		return (fieldMask & QuoteField.OPEN_PRICE) != 0;
+	}
+	
+	@Override
+	public Double getHighPrice() {
+		return (fieldMask & QuoteField.HIGH_PRICE) != 0 ? Double.valueOf(highPrice) : null;
+	}
+	
+	@Override
+	public void setHighPrice(Double value) {
+		if (value != null) {
+			setHighPrice(value.doubleValue());
+		} else {
+			clearHighPrice();
+		}
+	}
+	
+	@Override
+	public double getHighPriceAsDouble() {
+		return highPrice;
+	}
+	
+	@Override
+	public void setHighPrice(double value) {
+		highPrice = value;
+		fieldMask |= QuoteField.HIGH_PRICE;
+	}
+	
+	@Override
+	public void clearHighPrice() {
+		highPrice = 0;
+		fieldMask &= ~QuoteField.HIGH_PRICE;
+	}
+	
+	@Override
+	public boolean hasHighPrice() {
+		return (fieldMask & QuoteField.HIGH_PRICE) != 0;
+	}
+	
+	@Override
+	public Double getLowPrice() {
+		return (fieldMask & QuoteField.LOW_PRICE) != 0 ? Double.valueOf(lowPrice) : null;
+	}
+	
+	@Override
+	public void setLowPrice(Double value) {
+		if (value != null) {
+			setLowPrice(value.doubleValue());
+		} else {
+			clearLowPrice();
+		}
+	}
+	
+	@Override
+	public double getLowPriceAsDouble() {
+		return lowPrice;
+	}
+	
+	@Override
+	public void setLowPrice(double value) {
+		lowPrice = value;
+		fieldMask |= QuoteField.LOW_PRICE;
+	}
+	
+	@Override
+	public void clearLowPrice() {
+		lowPrice = 0;
+		fieldMask &= ~QuoteField.LOW_PRICE;
+	}
+	
+	@Override
+	public boolean hasLowPrice() {
+		return (fieldMask & QuoteField.LOW_PRICE) != 0;
+	}
+	
+	@Override
+	public Double getSettlementPrice() {
+		return (fieldMask & QuoteField.SETTLEMENT_PRICE) != 0 ? Double.valueOf(settlementPrice) : null;
+	}
+	
+	@Override
+	public void setSettlementPrice(Double value) {
+		if (value != null) {
+			setSettlementPrice(value.doubleValue());
+		} else {
+			clearSettlementPrice();
+		}
+	}
+	
+	@Override
+	public double getSettlementPriceAsDouble() {
+		return settlementPrice;
+	}
+	
+	@Override
+	public void setSettlementPrice(double value) {
+		settlementPrice = value;
+		fieldMask |= QuoteField.SETTLEMENT_PRICE;
+	}
+	
+	@Override
+	public void clearSettlementPrice() {
+		settlementPrice = 0;
+		fieldMask &= ~QuoteField.SETTLEMENT_PRICE;
+	}
+	
+	@Override
+	public boolean hasSettlementPrice() {
+		return (fieldMask & QuoteField.SETTLEMENT_PRICE) != 0;
+	}
+	
+	@Override
+	public Integer getVolume() {
+		return (fieldMask & QuoteField.VOLUME) != 0 ? Integer.valueOf(volume) : null;
+	}
+	
+	@Override
+	public void setVolume(Integer value) {
+		if (value != null) {
+			setVolume(value.intValue());
+		} else {
+			clearVolume();
+		}
+	}
+	
+	@Override
+	public int getVolumeAsInt() {
+		return volume;
+	}
+	
+	@Override
+	public void setVolume(int value) {
+		volume = value;
+		fieldMask |= QuoteField.VOLUME;
+	}
+	
+	@Override
+	public void clearVolume() {
+		volume = 0;
+		fieldMask &= ~QuoteField.VOLUME;
+	}
+	
+	@Override
+	public boolean hasVolume() {
+		return (fieldMask & QuoteField.VOLUME) != 0;
+	}
+	
+	@Override
+	public Integer getOpenInterest() {
+		return (fieldMask & QuoteField.OPEN_INTEREST) != 0 ? Integer.valueOf(openInterest) : null;
+	}
+	
+	@Override
+	public void setOpenInterest(Integer value) {
+		if (value != null) {
+			setOpenInterest(value.intValue());
+		} else {
+			clearOpenInterest();
+		}
+	}
+	
+	@Override
+	public int getOpenInterestAsInt() {
+		return openInterest;
+	}
+	
+	@Override
+	public void setOpenInterest(int value) {
+		openInterest = value;
+		fieldMask |= QuoteField.OPEN_INTEREST;
+	}
+	
+	@Override
+	public void clearOpenInterest() {
+		openInterest = 0;
+		fieldMask &= ~QuoteField.OPEN_INTEREST;
+	}
+	
+	@Override
+	public boolean hasOpenInterest() {
+		return (fieldMask & QuoteField.OPEN_INTEREST) != 0;
+	}
+	
+	@Override
+	public String getTime() {
+		return time;
+	}
+	
+	@Override
+	public void setTime(String value) {
+		time = value;
+		
+		if (value != null) {
+			fieldMask |= QuoteField.TIME;
+		} else {
+			fieldMask &= ~QuoteField.TIME;
+		}
+	}
+	
+	public boolean hasTime() {
+		return (fieldMask & QuoteField.TIME) != 0;
+	}
+	
+	@Override
+	public String getTimeDisplay() {
+		return timeDisplay;
+	}
+	
+	@Override
+	public void setTimeDisplay(String value) {
+		timeDisplay = value;
+		
+		if (value != null) {
+			fieldMask |= QuoteField.TIME_DISPLAY;
+		} else {
+			fieldMask &= ~QuoteField.TIME_DISPLAY;
+		}
+	}
+	
+	public boolean hasTimeDisplay() {
+		return (fieldMask & QuoteField.TIME_DISPLAY) != 0;
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("[PrimitiveMutableQuote (symbol: %s, sequence: %s)]", symbol, hasSequence() ? String.valueOf(sequence) : "--");
+	}
+}
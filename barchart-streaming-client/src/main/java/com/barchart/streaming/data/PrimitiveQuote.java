@@ -0,0 +1,50 @@
+package com.barchart.streaming.data;
+
+public interface PrimitiveQuote extends Quote {
+	int getFieldMask();
+	boolean has(int field);
+	
+	int getSequenceAsInt();
+	boolean hasSequence();
+	
+	int getDayNumAsInt();
+	boolean hasDayNum();
+	
+	double getLastPriceAsDouble();
+	boolean hasLastPrice();
+	double getPreviousPriceAsDouble();
+	boolean hasPreviousPrice();
+	
+	double getPriceChangeAsDouble();
+	boolean hasPriceChange();
+	double getPriceChangePercentAsDouble();
+	boolean hasPriceChangePercent();
+	
+	double getTradePriceAsDouble();
+	boolean hasTradePrice();
+	int getTradeSizeAsInt();
+	boolean hasTradeSize();
+	
+	double getBidPriceAsDouble();
+	boolean hasBidPrice();
+	int getBidSizeAsInt();
+	boolean hasBidSize();
+	double getAskPriceAsDouble();
+	boolean hasAskPrice();
+	int getAskSizeAsInt();
+	boolean hasAskSize();
+	
+	double getOpenPriceAsDouble();
+	boolean hasOpenPrice();
+	double getHighPriceAsDouble();
+	boolean hasHighPrice();
+	double getLowPriceAsDouble();
+	boolean hasLowPrice();
+	double getSettlementPriceAsDouble();
+	boolean hasSettlementPrice();
+	
+	int getVolumeAsInt();
+	boolean hasVolume();
+	int getOpenInterestAsInt();
+	boolean hasOpenInterest();
+}
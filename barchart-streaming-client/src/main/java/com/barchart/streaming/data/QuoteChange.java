@@ -0,0 +1,52 @@
+package com.barchart.streaming.data;
+
+/*
+ * A quote, together with the set of fields (see QuoteField) which were
+ * changed by the message that produced the notification, and whether that
+ * message was a snapshot (which replaces the quote) rather than a delta.
+ *
+ * The quote is a read-only view of the connection's cached quote, which the
+ * feed thread continues to update. It is only consistent for the duration of
+ * the callback; an observer which retains it, or hands it to another thread,
+ * must copy it first (e.g. with a QuoteCopySynchronizer).
+ */
+public final class QuoteChange {
+	private final Quote quote;
+	private final int fieldMask;
+	private final boolean snapshot;
+	
+	public QuoteChange(final Quote quote, final int fieldMask) {
+		this(quote, fieldMask, false);
+	}
+	
+	public QuoteChange(final Quote quote, final int fieldMask, final boolean snapshot) {
+		if (quote == null) {
+			throw new IllegalArgumentException("The \"quote\" argument is required.");
+		}
+		
+		this.quote = quote;
+		this.fieldMask = fieldMask;
+		this.snapshot = snapshot;
+	}
+	
+	public Quote getQuote() {
+		return quote;
+	}
+	
+	public int getFieldMask() {
+		return fieldMask;
+	}
+	
+	public boolean getIsSnapshot() {
+		return snapshot;
+	}
+	
+	public boolean has(final int field) {
+		return (fieldMask & field) != 0;
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("[QuoteChange (symbol: %s, fieldMask: %s, snapshot: %s)]", quote.getSymbol(), Integer.toHexString(fieldMask), snapshot);
+	}
+}
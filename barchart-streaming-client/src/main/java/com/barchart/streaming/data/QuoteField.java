@@ -0,0 +1,40 @@
+package com.barchart.streaming.data;
+
+public final class QuoteField {
+	public static final int SEQUENCE = 1 << 0;
+	public static final int ONLINE = 1 << 1;
+	public static final int FLAG = 1 << 2;
+	public static final int MODE = 1 << 3;
+	public static final int SESSION = 1 << 4;
+	public static final int DAY = 1 << 5;
+	public static final int DAY_NUM = 1 << 6;
+	public static final int LAST_PRICE = 1 << 7;
+	public static final int PREVIOUS_PRICE = 1 << 8;
+	public static final int PRICE_CHANGE = 1 << 9;
+	public static final int PRICE_CHANGE_PERCENT = 1 << 10;
+	public static final int TRADE_PRICE = 1 << 11;
+	public static final int TRADE_SIZE = 1 << 12;
+	public static final int BID_PRICE = 1 << 13;
+	public static final int BID_SIZE = 1 << 14;
+	public static final int ASK_PRICE = 1 << 15;
+	public static final int ASK_SIZE = 1 << 16;
+	public static final int OPEN_PRICE = 1 << 17;
+	public static final int HIGH_PRICE = 1 << 18;
+	public static final int LOW_PRICE = 1 << 19;
+	public static final int SETTLEMENT_PRICE = 1 << 20;
+	public static final int VOLUME = 1 << 21;
+	public static final int OPEN_INTEREST = 1 << 22;
+	public static final int TIME = 1 << 23;
+	public static final int TIME_DISPLAY = 1 << 24;
+	
+	public static final int NONE = 0;
+	public static final int ALL = (1 << 25) - 1;
+	
+	private QuoteField() {
+		
+	}
+	
+	public static boolean contains(final int mask, final int field) {
+		return (mask & field) != 0;
+	}
+}
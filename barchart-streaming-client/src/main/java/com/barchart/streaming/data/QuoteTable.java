@@ -0,0 +1,531 @@
+package com.barchart.streaming.data;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/*
+ * Columnar quote storage. Each numeric property is held in its own direct
+ * (off-heap) buffer, indexed by a slot assigned to the symbol when it is first
+ * allocated. String properties are kept in on-heap reference columns, since
+ * their values are created by the JSON parser regardless.
+ *
+ * Slots are never released; allocateSlot returns -1 once the table is full.
+ *
+ * Writes are expected from a single thread (the feed). Readers on other
+ * threads are not guaranteed a consistent view of a row.
+ */
+public final class QuoteTable {
+	private static final int INT_WIDTH = 4;
+	private static final int DOUBLE_WIDTH = 8;
+	
+	private final int capacity;
+	
+	private final ConcurrentMap<String, Integer> slots;
+	private final String[] symbols;
+	private final QuoteTableView[] views;
+	private volatile int size;
+	
+	private final ByteBuffer fieldMasks;
+	private final ByteBuffer online;
+	
+	private final ByteBuffer sequences;
+	private final ByteBuffer dayNums;
+	private final ByteBuffer lastPrices;
+	private final ByteBuffer previousPrices;
+	private final ByteBuffer priceChanges;
+	private final ByteBuffer priceChangePercents;
+	private final ByteBuffer tradePrices;
+	private final ByteBuffer tradeSizes;
+	private final ByteBuffer bidPrices;
+	private final ByteBuffer bidSizes;
+	private final ByteBuffer askPrices;
+	private final ByteBuffer askSizes;
+	private final ByteBuffer openPrices;
+	private final ByteBuffer highPrices;
+	private final ByteBuffer lowPrices;
+	private final ByteBuffer settlementPrices;
+	private final ByteBuffer volumes;
+	private final ByteBuffer openInterests;
+	
+	private final String[] flags;
+	private final String[] modes;
+	private final String[] sessions;
+	private final String[] days;
+	private final String[] times;
+	private final String[] timeDisplays;
+	
+	public QuoteTable(final int capacity) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("The \"capacity\" argument must be positive.");
+		}
+		
+		this.capacity = capacity;
+		
+		this.slots = new ConcurrentHashMap<String, Integer>(Math.min(capacity, 1024), 0.75f, 2);
+		this.symbols = new String[capacity];
+		this.views = new QuoteTableView[capacity];
+		this.size = 0;
+		
+		this.fieldMasks = allocate(capacity, INT_WIDTH);
+		this.online = allocate(capacity, 1);
+		
+		this.sequences = allocate(capacity, INT_WIDTH);
+		this.dayNums = allocate(capacity, INT_WIDTH);
+		this.lastPrices = allocate(capacity, DOUBLE_WIDTH);
+		this.previousPrices = allocate(capacity, DOUBLE_WIDTH);
+		this.priceChanges = allocate(capacity, DOUBLE_WIDTH);
+		this.priceChangePercents = allocate(capacity, DOUBLE_WIDTH);
+		this.tradePrices = allocate(capacity, DOUBLE_WIDTH);
+		this.tradeSizes = allocate(capacity, INT_WIDTH);
+		this.bidPrices = allocate(capacity, DOUBLE_WIDTH);
+		this.bidSizes = allocate(capacity, INT_WIDTH);
+		this.askPrices = allocate(capacity, DOUBLE_WIDTH);
+		this.askSizes = allocate(capacity, INT_WIDTH);
+		this.openPrices = allocate(capacity, DOUBLE_WIDTH);
+		this.highPrices = allocate(capacity, DOUBLE_WIDTH);
+		this.lowPrices = allocate(capacity, DOUBLE_WIDTH);
+		this.settlementPrices = allocate(capacity, DOUBLE_WIDTH);
+		this.volumes = allocate(capacity, INT_WIDTH);
+		this.openInterests = allocate(capacity, INT_WIDTH);
+		
+		this.flags = new String[capacity];
+		this.modes = new String[capacity];
+		this.sessions = new String[capacity];
+		this.days = new String[capacity];
+		this.times = new String[capacity];
+		this.timeDisplays = new String[capacity];
+	}
+	
+	public int getCapacity() {
+		return capacity;
+	}
+	
+	public int getSize() {
+		return size;
+	}
+	
+	public int getSlot(final String symbol) {
+		if (symbol == null) {
+			throw new IllegalArgumentException("The \"symbol\" argument is required.");
+		}
+		
+		final Integer slot = slots.get(symbol);
+		
+		return slot != null ? slot.intValue() : -1;
+	}
+	
+	public int allocateSlot(final String symbol) {
+		if (symbol == null) {
+			throw new IllegalArgumentException("The \"symbol\" argument is required.");
+		}
+		
+		int returnVal = getSlot(symbol);
+		
+		if (returnVal < 0) {
+			synchronized (this) {
+				returnVal = getSlot(symbol);
+				
+				if (returnVal < 0 && size < capacity) {
+					returnVal = size;
+					
+					symbols[returnVal] = symbol;
+					views[returnVal] = new QuoteTableView(this, returnVal, false);
+					
+					size = returnVal + 1;
+					
+					slots.put(symbol, Integer.valueOf(returnVal));
+				}
+			}
+		}
+		
+		return returnVal;
+	}
+	
+	public String getSymbol(final int slot) {
+		return symbols[slot];
+	}
+	
+	public QuoteTableView getQuote(final String symbol) {
+		final int slot = getSlot(symbol);
+		
+		return slot >= 0 ? views[slot] : null;
+	}
+	
+	public QuoteTableView getQuote(final int slot) {
+		return views[slot];
+	}
+	
+	public QuoteTableView createView() {
+		return new QuoteTableView(this, -1, true);
+	}
+	
+	public void clear(final int slot) {
+		fieldMasks.putInt(slot * INT_WIDTH, QuoteField.NONE);
+		online.put(slot, (byte)0);
+		
+		flags[slot] = null;
+		modes[slot] = null;
+		sessions[slot] = null;
+		days[slot] = null;
+		times[slot] = null;
+		timeDisplays[slot] = null;
+	}
+	
+	public int getFieldMask(final int slot) {
+		return fieldMasks.getInt(slot * INT_WIDTH);
+	}
+	
+	public boolean has(final int slot, final int field) {
+		return (getFieldMask(slot) & field) != 0;
+	}
+	
+	private void set(final int slot, final int field) {
+		final int index = slot * INT_WIDTH;
+		
+		fieldMasks.putInt(index, fieldMasks.getInt(index) | field);
+	}
+	
+	private void unset(final int slot, final int field) {
+		final int index = slot * INT_WIDTH;
+		
+		fieldMasks.putInt(index, fieldMasks.getInt(index) & ~field);
+	}
+	
+	public boolean getOnline(final int slot) {
+		return online.get(slot) != 0;
+	}
+	
+	public void setOnline(final int slot, final boolean value) {
+		online.put(slot, value ? (byte)1 : (byte)0);
+		set(slot, QuoteField.ONLINE);
+	}
+	
+	public int getSequence(final int slot) {
+		return sequences.getInt(slot * INT_WIDTH);
+	}
+	
+	public void setSequence(final int slot, final int value) {
+		sequences.putInt(slot * INT_WIDTH, value);
+		set(slot, QuoteField.SEQUENCE);
+	}
+	
+	public void clearSequence(final int slot) {
+		unset(slot, QuoteField.SEQUENCE);
+	}
+	
+	public String getFlag(final int slot) {
+		return flags[slot];
+	}
+	
+	public void setFlag(final int slot, final String value) {
+		flags[slot] = value;
+		
+		if (value != null) {
+			set(slot, QuoteField.FLAG);
+		} else {
+			unset(slot, QuoteField.FLAG);
+		}
+	}
+	
+	public String getMode(final int slot) {
+		return modes[slot];
+	}
+	
+	public void setMode(final int slot, final String value) {
+		modes[slot] = value;
+		
+		if (value != null) {
+			set(slot, QuoteField.MODE);
+		} else {
+			unset(slot, QuoteField.MODE);
+		}
+	}
+	
+	public String getSession(final int slot) {
+		return sessions[slot];
+	}
+	
+	public void setSession(final int slot, final String value) {
+		sessions[slot] = value;
+		
+		if (value != null) {
+			set(slot, QuoteField.SESSION);
+		} else {
+			unset(slot, QuoteField.SESSION);
+		}
+	}
+	
+	public String getDay(final int slot) {
+		return days[slot];
+	}
+	
+	public void setDay(final int slot, final String value) {
+		days[slot] = value;
+		
+		if (value != null) {
+			set(slot, QuoteField.DAY);
+		} else {
+			unset(slot, QuoteField.DAY);
+		}
+	}
+	
+	public int getDayNum(final int slot) {
+		return dayNums.getInt(slot * INT_WIDTH);
+	}
+	
+	public void setDayNum(final int slot, final int value) {
+		dayNums.putInt(slot * INT_WIDTH, value);
+		set(slot, QuoteField.DAY_NUM);
+	}
+	
+	public void clearDayNum(final int slot) {
+		unset(slot, QuoteField.DAY_NUM);
+	}
+	
+	public double getLastPrice(final int slot) {
+		return lastPrices.getDouble(slot * DOUBLE_WIDTH);
+	}
+	
+	public void setLastPrice(final int slot, final double value) {
+		lastPrices.putDouble(slot * DOUBLE_WIDTH, value);
+		set(slot, QuoteField.LAST_PRICE);
+	}
+	
+	public void clearLastPrice(final int slot) {
+		unset(slot, QuoteField.LAST_PRICE);
+	}
+	
+	public double getPreviousPrice(final int slot) {
+		return previousPrices.getDouble(slot * DOUBLE_WIDTH);
+	}
+	
+	public void setPreviousPrice(final int slot, final double value) {
+		previousPrices.putDouble(slot * DOUBLE_WIDTH, value);
+		set(slot, QuoteField.PREVIOUS_PRICE);
+	}
+	
+	public void clearPreviousPrice(final int slot) {
+		unset(slot, QuoteField.PREVIOUS_PRICE);
+	}
+	
+	public double getPriceChange(final int slot) {
+		return priceChanges.getDouble(slot * DOUBLE_WIDTH);
+	}
+	
+	public void setPriceChange(final int slot, final double value) {
+		priceChanges.putDouble(slot * DOUBLE_WIDTH, value);
+		set(slot, QuoteField.PRICE_CHANGE);
+	}
+	
+	public void clearPriceChange(final int slot) {
+		unset(slot, QuoteField.PRICE_CHANGE);
+	}
+	
+	public double getPriceChangePercent(final int slot) {
+		return priceChangePercents.getDouble(slot * DOUBLE_WIDTH);
+	}
+	
+	public void setPriceChangePercent(final int slot, final double value) {
+		priceChangePercents.putDouble(slot * DOUBLE_WIDTH, value);
+		set(slot, QuoteField.PRICE_CHANGE_PERCENT);
+	}
+	
+	public void clearPriceChangePercent(final int slot) {
+		unset(slot, QuoteField.PRICE_CHANGE_PERCENT);
+	}
+	
+	public double getTradePrice(final int slot) {
+		return tradePrices.getDouble(slot * DOUBLE_WIDTH);
+	}
+	
+	public void setTradePrice(final int slot, final double value) {
+		tradePrices.putDouble(slot * DOUBLE_WIDTH, value);
+		set(slot, QuoteField.TRADE_PRICE);
+	}
+	
+	public void clearTradePrice(final int slot) {
+		unset(slot, QuoteField.TRADE_PRICE);
+	}
+	
+	public int getTradeSize(final int slot) {
+		return tradeSizes.getInt(slot * INT_WIDTH);
+	}
+	
+	public void setTradeSize(final int slot, final int value) {
+		tradeSizes.putInt(slot * INT_WIDTH, value);
+		set(slot, QuoteField.TRADE_SIZE);
+	}
+	
+	public void clearTradeSize(final int slot) {
+		unset(slot, QuoteField.TRADE_SIZE);
+	}
+	
+	public double getBidPrice(final int slot) {
+		return bidPrices.getDouble(slot * DOUBLE_WIDTH);
+	}
+	
+	public void setBidPrice(final int slot, final double value) {
+		bidPrices.putDouble(slot * DOUBLE_WIDTH, value);
+		set(slot, QuoteField.BID_PRICE);
+	}
+	
+	public void clearBidPrice(final int slot) {
+		unset(slot, QuoteField.BID_PRICE);
+	}
+	
+	public int getBidSize(final int slot) {
+		return bidSizes.getInt(slot * INT_WIDTH);
+	}
+	
+	public void setBidSize(final int slot, final int value) {
+		bidSizes.putInt(slot * INT_WIDTH, value);
+		set(slot, QuoteField.BID_SIZE);
+	}
+	
+	public void clearBidSize(final int slot) {
+		unset(slot, QuoteField.BID_SIZE);
+	}
+	
+	public double getAskPrice(final int slot) {
+		return askPrices.getDouble(slot * DOUBLE_WIDTH);
+	}
+	
+	public void setAskPrice(final int slot, final double value) {
+		askPrices.putDouble(slot * DOUBLE_WIDTH, value);
+		set(slot, QuoteField.ASK_PRICE);
+	}
+	
+	public void clearAskPrice(final int slot) {
+		unset(slot, QuoteField.ASK_PRICE);
+	}
+	
+	public int getAskSize(final int slot) {
+		return askSizes.getInt(slot * INT_WIDTH);
+	}
+	
+	public void setAskSize(final int slot, final int value) {
+		askSizes.putInt(slot * INT_WIDTH, value);
+		set(slot, QuoteField.ASK_SIZE);
+	}
+	
+	public void clearAskSize(final int slot) {
+		unset(slot, QuoteField.ASK_SIZE);
+	}
+	
+	public double getOpenPrice(final int slot) {
+		return openPrices.getDouble(slot * DOUBLE_WIDTH);
+	}
+	
+	public void setOpenPrice(final int slot, final double value) {
+		openPrices.putDouble(slot * DOUBLE_WIDTH, value);
+		set(slot, QuoteField.OPEN_PRICE);
+	}
+	
+	public void clearOpenPrice(final int slot) {
+		unset(slot, QuoteField.OPEN_PRICE);
+	}
+	
+	public double getHighPrice(final int slot) {
+		return highPrices.getDouble(slot * DOUBLE_WIDTH);
+	}
+	
+	public void setHighPrice(final int slot, final double value) {
+		highPrices.putDouble(slot * DOUBLE_WIDTH, value);
+		set(slot, QuoteField.HIGH_PRICE);
+	}
+	
+	public void clearHighPrice(final int slot) {
+		unset(slot, QuoteField.HIGH_PRICE);
+	}
+	
+	public double getLowPrice(final int slot) {
+		return lowPrices.getDouble(slot * DOUBLE_WIDTH);
+	}
+	
+	public void setLowPrice(final int slot, final double value) {
+		lowPrices.putDouble(slot * DOUBLE_WIDTH, value);
+		set(slot, QuoteField.LOW_PRICE);
+	}
+	
+	public void clearLowPrice(final int slot) {
+		unset(slot, QuoteField.LOW_PRICE);
+	}
+	
+	public double getSettlementPrice(final int slot) {
+		return settlementPrices.getDouble(slot * DOUBLE_WIDTH);
+	}
+	
+	public void setSettlementPrice(final int slot, final double value) {
+		settlementPrices.putDouble(slot * DOUBLE_WIDTH, value);
+		set(slot, QuoteField.SETTLEMENT_PRICE);
+	}
+	
+	public void clearSettlementPrice(final int slot) {
+		unset(slot, QuoteField.SETTLEMENT_PRICE);
+	}
+	
+	public int getVolume(final int slot) {
+		return volumes.getInt(slot * INT_WIDTH);
+	}
+	
+	public void setVolume(final int slot, final int value) {
+		volumes.putInt(slot * INT_WIDTH, value);
+		set(slot, QuoteField.VOLUME);
+	}
+	
+	public void clearVolume(final int slot) {
+		unset(slot, QuoteField.VOLUME);
+	}
+	
+	public int getOpenInterest(final int slot) {
+		return openInterests.getInt(slot * INT_WIDTH);
+	}
+	
+	public void setOpenInterest(final int slot, final int value) {
+		openInterests.putInt(slot * INT_WIDTH, value);
+		set(slot, QuoteField.OPEN_INTEREST);
+	}
+	
+	public void clearOpenInterest(final int slot) {
+		unset(slot, QuoteField.OPEN_INTEREST);
+	}
+	
+	public String getTime(final int slot) {
+		return times[slot];
+	}
+	
+	public void setTime(final int slot, final String value) {
+		times[slot] = value;
+		
+		if (value != null) {
+			set(slot, QuoteField.TIME);
+		} else {
+			unset(slot, QuoteField.TIME);
+		}
+	}
+	
+	public String getTimeDisplay(final int slot) {
+		return timeDisplays[slot];
+	}
+	
+	public void setTimeDisplay(final int slot, final String value) {
+		timeDisplays[slot] = value;
+		
+		if (value != null) {
+			set(slot, QuoteField.TIME_DISPLAY);
+		} else {
+			unset(slot, QuoteField.TIME_DISPLAY);
+		}
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("[QuoteTable (capacity: %s, size: %s)]", capacity, getSize());
+	}
+	
+	private static ByteBuffer allocate(final int capacity, final int width) {
+		return ByteBuffer.allocateDirect(capacity * width).order(ByteOrder.nativeOrder());
+	}
+}
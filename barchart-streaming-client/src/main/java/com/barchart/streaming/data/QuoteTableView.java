@@ -0,0 +1,742 @@
+package com.barchart.streaming.data;
+
+/*
+ * A flyweight over one slot of a QuoteTable. Views returned by the table for a
+ * symbol are fixed to that slot; views from QuoteTable.createView can be moved
+ * between slots to scan the table without allocating.
+ */
+public final class QuoteTableView implements MutablePrimitiveQuote {
+	private final QuoteTable table;
+	private final boolean movable;
+	private int slot;
+	
+	QuoteTableView(final QuoteTable table, final int slot, final boolean movable) {
+		this.table = table;
+		this.movable = movable;
+		this.slot = slot;
+	}
+	
+	public int getSlot() {
+		return slot;
+	}
+	
+	public boolean getIsMovable() {
+		return movable;
+	}
+	
+	public QuoteTableView moveTo(final int slot) {
+		if (!movable) {
+			throw new IllegalStateException(String.format("Unable to move view, it is fixed to slot %s.", this.slot));
+		}
+		
+		if (slot < 0 || slot >= table.getSize()) {
+			throw new IllegalArgumentException(String.format("The \"slot\" argument is out of range (slot: %s).", slot));
+		}
+		
+		this.slot = slot;
+		
+		return this;
+	}
+	
+	@Override
+	public int getFieldMask() {
+		return table.getFieldMask(slot);
+	}
+	
+	@Override
+	public boolean has(final int field) {
+		return table.has(slot, field);
+	}
+	
+	@Override
+	public String getSymbol() {
+		return table.getSymbol(slot);
+	}
+	
+	@Override
+	public Integer getSequence() {
+		return table.has(slot, QuoteField.SEQUENCE) ? Integer.valueOf(table.getSequence(slot)) : null;
+	}
+	
+	@Override
+	public void setSequence(Integer value) {
+		if (value != null) {
+			table.setSequence(slot, value.intValue());
+		} else {
+			table.clearSequence(slot);
+		}
+	}
+	
+	@Override
+	public int getSequenceAsInt() {
+		return table.getSequence(slot);
+	}
+	
+	@Override
+	public boolean hasSequence() {
+		return table.has(slot, QuoteField.SEQUENCE);
+	}
+	
+	@Override
+	public void setSequence(int value) {
+		table.setSequence(slot, value);
+	}
+	
+	@Override
+	public void clearSequence() {
+		table.clearSequence(slot);
+	}
+	
+	@Override
+	public boolean getOnline() {
+		return table.getOnline(slot);
+	}
+	
+	@Override
+	public void setOnline(boolean value) {
+		table.setOnline(slot, value);
+	}
+	
+	@Override
+	public String getFlag() {
+		return table.getFlag(slot);
+	}
+	
+	@Override
+	public void setFlag(String value) {
+		table.setFlag(slot, value);
+	}
+	
+	@Override
+	public String getMode() {
+		return table.getMode(slot);
+	}
+	
+	@Override
+	public void setMode(String value) {
+		table.setMode(slot, value);
+	}
+	
+	@Override
+	public String getSession() {
+		return table.getSession(slot);
+	}
+	
+	@Override
+	public void setSession(String value) {
+		table.setSession(slot, value);
+	}
+	
+	@Override
+	public String getDay() {
+		return table.getDay(slot);
+	}
+	
+	@Override
+	public void setDay(String value) {
+		table.setDay(slot, value);
+	}
+	
+	@Override
+	public Integer getDayNum() {
+		return table.has(slot, QuoteField.DAY_NUM) ? Integer.valueOf(table.getDayNum(slot)) : null;
+	}
+	
+	@Override
+	public void setDayNum(Integer value) {
+		if (value != null) {
+			table.setDayNum(slot, value.intValue());
+		} else {
+			table.clearDayNum(slot);
+		}
+	}
+	
+	@Override
+	public int getDayNumAsInt() {
+		return table.getDayNum(slot);
+	}
+	
+	@Override
+	public boolean hasDayNum() {
+		return table.has(slot, QuoteField.DAY_NUM);
+	}
+	
+	@Override
+	public void setDayNum(int value) {
+		table.setDayNum(slot, value);
+	}
+	
+	@Override
+	public void clearDayNum() {
+		table.clearDayNum(slot);
+	}
+	
+	@Override
+	public Double getLastPrice() {
+		return table.has(slot, QuoteField.LAST_PRICE) ? Double.valueOf(table.getLastPrice(slot)) : null;
+	}
+	
+	@Override
+	public void setLastPrice(Double value) {
+		if (value != null) {
+			table.setLastPrice(slot, value.doubleValue());
+		} else {
+			table.clearLastPrice(slot);
+		}
+	}
+	
+	@Override
+	public double getLastPriceAsDouble() {
+		return table.getLastPrice(slot);
+	}
+	
+	@Override
+	public boolean hasLastPrice() {
+		return table.has(slot, QuoteField.LAST_PRICE);
+	}
+	
+	@Override
+	public void setLastPrice(double value) {
+		table.setLastPrice(slot, value);
+	}
+	
+	@Override
+	public void clearLastPrice() {
+		table.clearLastPrice(slot);
+	}
+	
+	@Override
+	public Double getPreviousPrice() {
+		return table.has(slot, QuoteField.PREVIOUS_PRICE) ? Double.valueOf(table.getPreviousPrice(slot)) : null;
+	}
+	
+	@Override
+	public void setPreviousPrice(Double value) {
+		if (value != null) {
+			table.setPreviousPrice(slot, value.doubleValue());
+		} else {
+			table.clearPreviousPrice(slot);
+		}
+	}
+	
+	@Override
+	public double getPreviousPriceAsDouble() {
+		return table.getPreviousPrice(slot);
+	}
+	
+	@Override
+	public boolean hasPreviousPrice() {
+		return table.has(slot, QuoteField.PREVIOUS_PRICE);
+	}
+	
+	@Override
+	public void setPreviousPrice(double value) {
+		table.setPreviousPrice(slot, value);
+	}
+	
+	@Override
+	public void clearPreviousPrice() {
+		table.clearPreviousPrice(slot);
+	}
+	
+	@Override
+	public Double getPriceChange() {
+		return table.has(slot, QuoteField.PRICE_CHANGE) ? Double.valueOf(table.getPriceChange(slot)) : null;
+	}
+	
+	@Override
+	public void setPriceChange(Double value) {
+		if (value != null) {
+			table.setPriceChange(slot, value.doubleValue());
+		} else {
+			table.clearPriceChange(slot);
+		}
+	}
+	
+	@Override
+	public double getPriceChangeAsDouble() {
+		return table.getPriceChange(slot);
+	}
+	
+	@Override
+	public boolean hasPriceChange() {
+		return table.has(slot, QuoteField.PRICE_CHANGE);
+	}
+	
+	@Override
+	public void setPriceChange(double value) {
+		table.setPriceChange(slot, value);
+	}
+	
+	@Override
+	public void clearPriceChange() {
+		table.clearPriceChange(slot);
+	}
+	
+	@Override
+	public Double getPriceChangePercent() {
+		return table.has(slot, QuoteField.PRICE_CHANGE_PERCENT) ? Double.valueOf(table.getPriceChangePercent(slot)) : null;
+	}
+	
+	@Override
+	public void setPriceChangePercent(Double value) {
+		if (value != null) {
+			table.setPriceChangePercent(slot, value.doubleValue());
+		} else {
+			table.clearPriceChangePercent(slot);
+		}
+	}
+	
+	@Override
+	public double getPriceChangePercentAsDouble() {
+		return table.getPriceChangePercent(slot);
+	}
+	
+	@Override
+	public boolean hasPriceChangePercent() {
+		return table.has(slot, QuoteField.PRICE_CHANGE_PERCENT);
+	}
+	
+	@Override
+	public void setPriceChangePercent(double value) {
+		table.setPriceChangePercent(slot, value);
+	}
+	
+	@Override
+	public void clearPriceChangePercent() {
+		table.clearPriceChangePercent(slot);
+	}
+	
+	@Override
+	public Double getTradePrice() {
+		return table.has(slot, QuoteField.TRADE_PRICE) ? Double.valueOf(table.getTradePrice(slot)) : null;
+	}
+	
+	@Override
+	public void setTradePrice(Double value) {
+		if (value != null) {
+			table.setTradePrice(slot, value.doubleValue());
+		} else {
+			table.clearTradePrice(slot);
+		}
+	}
+	
+	@Override
+	public double getTradePriceAsDouble() {
+		return table.getTradePrice(slot);
+	}
+	
+	@Override
+	public boolean hasTradePrice() {
+		return table.has(slot, QuoteField.TRADE_PRICE);
+	}
+	
+	@Override
+	public void setTradePrice(double value) {
+		table.setTradePrice(slot, value);
+	}
+	
+	@Override
+	public void clearTradePrice() {
+		table.clearTradePrice(slot);
+	}
+	
+	@Override
+	public Integer getTradeSize() {
+		return table.has(slot, QuoteField.TRADE_SIZE) ? Integer.valueOf(table.getTradeSize(slot)) : null;
+	}
+	
+	@Override
+	public void setTradeSize(Integer value) {
+		if (value != null) {
+			table.setTradeSize(slot, value.intValue());
+		} else {
+			table.clearTradeSize(slot);
+		}
+	}
+	
+	@Override
+	public int getTradeSizeAsInt() {
+		return table.getTradeSize(slot);
+	}
+	
+	@Override
+	public boolean hasTradeSize() {
+		return table.has(slot, QuoteField.TRADE_SIZE);
+	}
+	
+	@Override
+	public void setTradeSize(int value) {
+		table.setTradeSize(slot, value);
+	}
+	
+	@Override
+	public void clearTradeSize() {
+		table.clearTradeSize(slot);
+	}
+	
+	@Override
+	public Double getBidPrice() {
+		return table.has(slot, QuoteField.BID_PRICE) ? Double.valueOf(table.getBidPrice(slot)) : null;
+	}
+	
+	@Override
+	public void setBidPrice(Double value) {
+		if (value != null) {
+			table.setBidPrice(slot, value.doubleValue());
+		} else {
+			table.clearBidPrice(slot);
+		}
+	}
+	
+	@Override
+	public double getBidPriceAsDouble() {
+		return table.getBidPrice(slot);
+	}
+	
+	@Override
+	public boolean hasBidPrice() {
+		return table.has(slot, QuoteField.BID_PRICE);
+	}
+	
+	@Override
+	public void setBidPrice(double value) {
+		table.setBidPrice(slot, value);
+	}
+	
+	@Override
+	public void clearBidPrice() {
+		table.clearBidPrice(slot);
+	}
+	
+	@Override
+	public Integer getBidSize() {
+		return table.has(slot, QuoteField.BID_SIZE) ? Integer.valueOf(table.getBidSize(slot)) : null;
+	}
+	
+	@Override
+	public void setBidSize(Integer value) {
+		if (value != null) {
+			table.setBidSize(slot, value.intValue());
+		} else {
+			table.clearBidSize(slot);
+		}
+	}
+	
+	@Override
+	public int getBidSizeAsInt() {
+		return table.getBidSize(slot);
+	}
+	
+	@Override
+	public boolean hasBidSize() {
+		return table.has(slot, QuoteField.BID_SIZE);
+	}
+	
+	@Override
+	public void setBidSize(int value) {
+		table.setBidSize(slot, value);
+	}
+	
+	@Override
+	public void clearBidSize() {
+		table.clearBidSize(slot);
+	}
+	
+	@Override
+	public Double getAskPrice() {
+		return table.has(slot, QuoteField.ASK_PRICE) ? Double.valueOf(table.getAskPrice(slot)) : null;
+	}
+	
+	@Override
+	public void setAskPrice(Double value) {
+		if (value != null) {
+			table.setAskPrice(slot, value.doubleValue());
+		} else {
+			table.clearAskPrice(slot);
+		}
+	}
+	
+	@Override
+	public double getAskPriceAsDouble() {
+		return table.getAskPrice(slot);
+	}
+	
+	@Override
+	public boolean hasAskPrice() {
+		return table.has(slot, QuoteField.ASK_PRICE);
+	}
+	
+	@Override
+	public void setAskPrice(double value) {
+		table.setAskPrice(slot, value);
+	}
+	
+	@Override
+	public void clearAskPrice() {
+		table.clearAskPrice(slot);
+	}
+	
+	@Override
+	public Integer getAskSize() {
+		return table.has(slot, QuoteField.ASK_SIZE) ? Integer.valueOf(table.getAskSize(slot)) : null;
+	}
+	
+	@Override
+	public void setAskSize(Integer value) {
+		if (value != null) {
+			table.setAskSize(slot, value.intValue());
+		} else {
+			table.clearAskSize(slot);
+		}
+	}
+	
+	@Override
+	public int getAskSizeAsInt() {
+		return table.getAskSize(slot);
+	}
+	
+	@Override
+	public boolean hasAskSize() {
+		return table.has(slot, QuoteField.ASK_SIZE);
+	}
+	
+	@Override
+	public void setAskSize(int value) {
+		table.setAskSize(slot, value);
+	}
+	
+	@Override
+	public void clearAskSize() {
+		table.clearAskSize(slot);
+	}
+	
+	@Override
+	public Double getOpenPrice() {
+		return table.has(slot, QuoteField.OPEN_PRICE) ? Double.valueOf(table.getOpenPrice(slot)) : null;
+	}
+	
+	@Override
+	public void setOpenPrice(Double value) {
+		if (value != null) {
+			table.setOpenPrice(slot, value.doubleValue());
+		} else {
+			table.clearOpenPrice(slot);
+		}
+	}
+	
+	@Override
+	public double getOpenPriceAsDouble() {
+		return table.getOpenPrice(slot);
+	}
+	
+	@Override
+	public boolean hasOpenPrice() {
+		return table.has(slot, QuoteField.OPEN_PRICE);
+	}
+	
+	@Override
+	public void setOpenPrice(double value) {
+		table.setOpenPrice(slot, value);
+	}
+	
+	@Override
+	public void clearOpenPrice() {
+		table.clearOpenPrice(slot);
+	}
+	
+	@Override
+	public Double getHighPrice() {
+		return table.has(slot, QuoteField.HIGH_PRICE) ? Double.valueOf(table.getHighPrice(slot)) : null;
+	}
+	
+	@Override
+	public void setHighPrice(Double value) {
+		if (value != null) {
+			table.setHighPrice(slot, value.doubleValue());
+		} else {
+			table.clearHighPrice(slot);
+		}
+	}
+	
+	@Override
+	public double getHighPriceAsDouble() {
+		return table.getHighPrice(slot);
+	}
+	
+	@Override
+	public boolean hasHighPrice() {
+		return table.has(slot, QuoteField.HIGH_PRICE);
+	}
+	
+	@Override
+	public void setHighPrice(double value) {
+		table.setHighPrice(slot, value);
+	}
+	
+	@Override
+	public void clearHighPrice() {
+		table.clearHighPrice(slot);
+	}
+	
+	@Override
+	public Double getLowPrice() {
+		return table.has(slot, QuoteField.LOW_PRICE) ? Double.valueOf(table.getLowPrice(slot)) : null;
+	}
+	
+	@Override
+	public void setLowPrice(Double value) {
+		if (value != null) {
+			table.setLowPrice(slot, value.doubleValue());
+		} else {
+			table.clearLowPrice(slot);
+		}
+	}
+	
+	@Override
+	public double getLowPriceAsDouble() {
+		return table.getLowPrice(slot);
+	}
+	
+	@Override
+	public boolean hasLowPrice() {
+		return table.has(slot, QuoteField.LOW_PRICE);
+	}
+	
+	@Override
+	public void setLowPrice(double value) {
+		table.setLowPrice(slot, value);
+	}
+	
+	@Override
+	public void clearLowPrice() {
+		table.clearLowPrice(slot);
+	}
+	
+	@Override
+	public Double getSettlementPrice() {
+		return table.has(slot, QuoteField.SETTLEMENT_PRICE) ? Double.valueOf(table.getSettlementPrice(slot)) : null;
+	}
+	
+	@Override
+	public void setSettlementPrice(Double value) {
+		if (value != null) {
+			table.setSettlementPrice(slot, value.doubleValue());
+		} else {
+			table.clearSettlementPrice(slot);
+		}
+	}
+	
+	@Override
+	public double getSettlementPriceAsDouble() {
+		return table.getSettlementPrice(slot);
+	}
+	
+	@Override
+	public boolean hasSettlementPrice() {
+		return table.has(slot, QuoteField.SETTLEMENT_PRICE);
+	}
+	
+	@Override
+	public void setSettlementPrice(double value) {
+		table.setSettlementPrice(slot, value);
+	}
+	
+	@Override
+	public void clearSettlementPrice() {
+		table.clearSettlementPrice(slot);
+	}
+	
+	@Override
+	public Integer getVolume() {
+		return table.has(slot, QuoteField.VOLUME) ? Integer.valueOf(table.getVolume(slot)) : null;
+	}
+	
+	@Override
+	public void setVolume(Integer value) {
+		if (value != null) {
+			table.setVolume(slot, value.intValue());
+		} else {
+			table.clearVolume(slot);
+		}
+	}
+	
+	@Override
+	public int getVolumeAsInt() {
+		return table.getVolume(slot);
+	}
+	
+	@Override
+	public boolean hasVolume() {
+		return table.has(slot, QuoteField.VOLUME);
+	}
+	
+	@Override
+	public void setVolume(int value) {
+		table.setVolume(slot, value);
+	}
+	
+	@Override
+	public void clearVolume() {
+		table.clearVolume(slot);
+	}
+	
+	@Override
+	public Integer getOpenInterest() {
+		return table.has(slot, QuoteField.OPEN_INTEREST) ? Integer.valueOf(table.getOpenInterest(slot)) : null;
+	}
+	
+	@Override
+	public void setOpenInterest(Integer value) {
+		if (value != null) {
+			table.setOpenInterest(slot, value.intValue());
+		} else {
+			table.clearOpenInterest(slot);
+		}
+	}
+	
+	@Override
+	public int getOpenInterestAsInt() {
+		return table.getOpenInterest(slot);
+	}
+	
+	@Override
+	public boolean hasOpenInterest() {
+		return table.has(slot, QuoteField.OPEN_INTEREST);
+	}
+	
+	@Override
+	public void setOpenInterest(int value) {
+		table.setOpenInterest(slot, value);
+	}
+	
+	@Override
+	public void clearOpenInterest() {
+		table.clearOpenInterest(slot);
+	}
+	
+	@Override
+	public String getTime() {
+		return table.getTime(slot);
+	}
+	
+	@Override
+	public void setTime(String value) {
+		table.setTime(slot, value);
+	}
+	
+	@Override
+	public String getTimeDisplay() {
+		return table.getTimeDisplay(slot);
+	}
+	
+	@Override
+	public void setTimeDisplay(String value) {
+		table.setTimeDisplay(slot, value);
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("[QuoteTableView (slot: %s, symbol: %s)]", slot, slot >= 0 ? getSymbol() : "--");
+	}
+}
@@ -0,0 +1,342 @@
+package com.barchart.streaming.data;
+
+/*
+ * A read-only view of another quote. It reflects the underlying quote as it
+ * changes; it does not copy it.
+ */
+public final class ReadOnlyQuote implements PrimitiveQuote {
+	private final PrimitiveQuote quote;
+	
+	public ReadOnlyQuote(final PrimitiveQuote quote) {
+		if (quote == null) {
+			throw new IllegalArgumentException("The \"quote\" argument is required.");
+		}
+		
+		this.quote = quote;
+	}
+	
+	@Override
+	public String getSymbol() {
+		return quote.getSymbol();
+	}
+	
+	@Override
+	public Integer getSequence() {
+		return quote.getSequence();
+	}
+	
+	@Override
+	public boolean getOnline() {
+		return quote.getOnline();
+	}
+	
+	@Override
+	public String getFlag() {
+		return quote.getFlag();
+	}
+	
+	@Override
+	public String getMode() {
+		return quote.getMode();
+	}
+	
+	@Override
+	public String getSession() {
+		return quote.getSession();
+	}
+	
+	@Override
+	public String getDay() {
+		return quote.getDay();
+	}
+	
+	@Override
+	public Integer getDayNum() {
+		return quote.getDayNum();
+	}
+	
+	@Override
+	public Double getLastPrice() {
+		return quote.getLastPrice();
+	}
+	
+	@Override
+	public Double getPreviousPrice() {
+		return quote.getPreviousPrice();
+	}
+	
+	@Override
+	public Double getPriceChange() {
+		return quote.getPriceChange();
+	}
+	
+	@Override
+	public Double getPriceChangePercent() {
+		return quote.getPriceChangePercent();
+	}
+	
+	@Override
+	public Double getTradePrice() {
+		return quote.getTradePrice();
+	}
+	
+	@Override
+	public Integer getTradeSize() {
+		return quote.getTradeSize();
+	}
+	
+	@Override
+	public Double getBidPrice() {
+		return quote.getBidPrice();
+	}
+	
+	@Override
+	public Integer getBidSize() {
+		return quote.getBidSize();
+	}
+	
+	@Override
+	public Double getAskPrice() {
+		return quote.getAskPrice();
+	}
+	
+	@Override
+	public Integer getAskSize() {
+		return quote.getAskSize();
+	}
+	
+	@Override
+	public Double getOpenPrice() {
+		return quote.getOpenPrice();
+	}
+	
+	@Override
+	public Double getHighPrice() {
+		return quote.getHighPrice();
+	}
+	
+	@Override
+	public Double getLowPrice() {
+		return quote.getLowPrice();
+	}
+	
+	@Override
+	public Double getSettlementPrice() {
+		return quote.getSettlementPrice();
+	}
+	
+	@Override
+	public Integer getVolume() {
+		return quote.getVolume();
+	}
+	
+	@Override
+	public Integer getOpenInterest() {
+		return quote.getOpenInterest();
+	}
+	
+	@Override
+	public String getTime() {
+		return quote.getTime();
+	}
+	
+	@Override
+	public String getTimeDisplay() {
+		return quote.getTimeDisplay();
+	}
+	
+	@Override
+	public int getFieldMask() {
+		return quote.getFieldMask();
+	}
+	
+	@Override
+	public boolean has(final int field) {
+		return quote.has(field);
+	}
+	
+	@Override
+	public int getSequenceAsInt() {
+		return quote.getSequenceAsInt();
+	}
+	
+	@Override
+	public boolean hasSequence() {
+		return quote.hasSequence();
+	}
+	
+	@Override
+	public int getDayNumAsInt() {
+		return quote.getDayNumAsInt();
+	}
+	
+	@Override
+	public boolean hasDayNum() {
+		return quote.hasDayNum();
+	}
+	
+	@Override
+	public double getLastPriceAsDouble() {
+		return quote.getLastPriceAsDouble();
+	}
+	
+	@Override
+	public boolean hasLastPrice() {
+		return quote.hasLastPrice();
+	}
+	
+	@Override
+	public double getPreviousPriceAsDouble() {
+		return quote.getPreviousPriceAsDouble();
+	}
+	
+	@Override
+	public boolean hasPreviousPrice() {
+		return quote.hasPreviousPrice();
+	}
+	
+	@Override
+	public double getPriceChangeAsDouble() {
+		return quote.getPriceChangeAsDouble();
+	}
+	
+	@Override
+	public boolean hasPriceChange() {
+		return quote.hasPriceChange();
+	}
+	
+	@Override
+	public double getPriceChangePercentAsDouble() {
+		return quote.getPriceChangePercentAsDouble();
+	}
+	
+	@Override
+	public boolean hasPriceChangePercent() {
+		return quote.hasPriceChangePercent();
+	}
+	
+	@Override
+	public double getTradePriceAsDouble() {
+		return quote.getTradePriceAsDouble();
+	}
+	
+	@Override
+	public boolean hasTradePrice() {
+		return quote.hasTradePrice();
+	}
+	
+	@Override
+	public int getTradeSizeAsInt() {
+		return quote.getTradeSizeAsInt();
+	}
+	
+	@Override
+	public boolean hasTradeSize() {
+		return quote.hasTradeSize();
+	}
+	
+	@Override
+	public double getBidPriceAsDouble() {
+		return quote.getBidPriceAsDouble();
+	}
+	
+	@Override
+	public boolean hasBidPrice() {
+		return quote.hasBidPrice();
+	}
+	
+	@Override
+	public int getBidSizeAsInt() {
+		return quote.getBidSizeAsInt();
+	}
+	
+	@Override
+	public boolean hasBidSize() {
+		return quote.hasBidSize();
+	}
+	
+	@Override
+	public double getAskPriceAsDouble() {
+		return quote.getAskPriceAsDouble();
+	}
+	
+	@Override
+	public boolean hasAskPrice() {
+		return quote.hasAskPrice();
+	}
+	
+	@Override
+	public int getAskSizeAsInt() {
+		return quote.getAskSizeAsInt();
+	}
+	
+	@Override
+	public boolean hasAskSize() {
+		return quote.hasAskSize();
+	}
+	
+	@Override
+	public double getOpenPriceAsDouble() {
+		return quote.getOpenPriceAsDouble();
+	}
+	
+	@Override
+	public boolean hasOpenPrice() {
+		return quote.hasOpenPrice();
+	}
+	
+	@Override
+	public double getHighPriceAsDouble() {
+		return quote.getHighPriceAsDouble();
+	}
+	
+	@Override
+	public boolean hasHighPrice() {
+		return quote.hasHighPrice();
+	}
+	
+	@Override
+	public double getLowPriceAsDouble() {
+		return quote.getLowPriceAsDouble();
+	}
+	
+	@Override
+	public boolean hasLowPrice() {
+		return quote.hasLowPrice();
+	}
+	
+	@Override
+	public double getSettlementPriceAsDouble() {
+		return quote.getSettlementPriceAsDouble();
+	}
+	
+	@Override
+	public boolean hasSettlementPrice() {
+		return quote.hasSettlementPrice();
+	}
+	
+	@Override
+	public int getVolumeAsInt() {
+		return quote.getVolumeAsInt();
+	}
+	
+	@Override
+	public boolean hasVolume() {
+		return quote.hasVolume();
+	}
+	
+	@Override
+	public int getOpenInterestAsInt() {
+		return quote.getOpenInterestAsInt();
+	}
+	
+	@Override
+	public boolean hasOpenInterest() {
+		return quote.hasOpenInterest();
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("[ReadOnlyQuote (symbol: %s)]", quote.getSymbol());
+	}
+}
@@ -0,0 +1,306 @@
+package com.barchart.streaming.data;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.barchart.common.data.Synchronizer;
+
+/*
+ * A quote which one (feed) thread updates while any number of other threads
+ * read it, guarded by a sequence lock. The writer makes the version odd,
+ * publishes every field, then makes the version even again. Readers never
+ * block or write shared state: they copy the fields and retry if the version
+ * was odd or changed while copying, so each copy is a consistent snapshot.
+ * 
+ * Fields are held in atomic arrays (doubles as their raw bits) so that the
+ * ordering between the version and the fields is guaranteed by the memory
+ * model; on common hardware these reads compile to plain loads.
+ */
+public final class VersionedQuote {
+	private static final int FIELD_MASK = 0;
+	private static final int ONLINE = 1;
+	private static final int SEQUENCE = 2;
+	private static final int DAY_NUM = 3;
+	private static final int LAST_PRICE = 4;
+	private static final int PREVIOUS_PRICE = 5;
+	private static final int PRICE_CHANGE = 6;
+	private static final int PRICE_CHANGE_PERCENT = 7;
+	private static final int TRADE_PRICE = 8;
+	private static final int TRADE_SIZE = 9;
+	private static final int BID_PRICE = 10;
+	private static final int BID_SIZE = 11;
+	private static final int ASK_PRICE = 12;
+	private static final int ASK_SIZE = 13;
+	private static final int OPEN_PRICE = 14;
+	private static final int HIGH_PRICE = 15;
+	private static final int LOW_PRICE = 16;
+	private static final int SETTLEMENT_PRICE = 17;
+	private static final int VOLUME = 18;
+	private static final int OPEN_INTEREST = 19;
+	private static final int COLUMNS = 20;
+	
+	private static final int FLAG_TEXT = 0;
+	private static final int MODE_TEXT = 1;
+	private static final int SESSION_TEXT = 2;
+	private static final int DAY_TEXT = 3;
+	private static final int TIME_TEXT = 4;
+	private static final int TIME_DISPLAY_TEXT = 5;
+	private static final int TEXT_COLUMNS = 6;
+	
+	private static final int SPINS = 63;
+	
+	private final String symbol;
+	private final PrimitiveMutableQuote staging;
+	
+	private final AtomicLong version;
+	private final AtomicLongArray values;
+	private final AtomicReferenceArray<String> text;
+	
+	private final AtomicLong retryCount;
+	
+	public VersionedQuote(final String symbol) {
+		if (symbol == null) {
+			throw new IllegalArgumentException("The \"symbol\" argument is required.");
+		}
+		
+		this.symbol = symbol;
+		this.staging = new PrimitiveMutableQuote(symbol);
+		
+		this.version = new AtomicLong(0L);
+		this.values = new AtomicLongArray(COLUMNS);
+		this.text = new AtomicReferenceArray<String>(TEXT_COLUMNS);
+		
+		this.retryCount = new AtomicLong(0L);
+	}
+	
+	public String getSymbol() {
+		return symbol;
+	}
+	
+	/* Even when stable, incremented twice per update. */
+	public long getVersion() {
+		return version.get();
+	}
+	
+	public long getRetryCount() {
+		return retryCount.get();
+	}
+	
+	/* Must only be called by one thread at a time (e.g. the feed thread). */
+	public void update(final Synchronizer<MutableQuote> synchronizer) {
+		if (synchronizer == null) {
+			throw new IllegalArgumentException("The \"synchronizer\" argument is required.");
+		}
+		
+		synchronizer.synchronize(staging);
+		
+		final long current = version.get();
+		
+		version.set(current + 1);
+		
+		values.lazySet(FIELD_MASK, staging.getFieldMask());
+		values.lazySet(ONLINE, staging.getOnline() ? 1L : 0L);
+		
+		values.lazySet(SEQUENCE, staging.getSequenceAsInt());
+		values.lazySet(DAY_NUM, staging.getDayNumAsInt());
+		values.lazySet(LAST_PRICE, Double.doubleToRawLongBits(staging.getLastPriceAsDouble()));
+		values.lazySet(PREVIOUS_PRICE, Double.doubleToRawLongBits(staging.getPreviousPriceAsDouble()));
+		values.lazySet(PRICE_CHANGE, Double.doubleToRawLongBits(staging.getPriceChangeAsDouble()));
+		values.lazySet(PRICE_CHANGE_PERCENT, Double.doubleToRawLongBits(staging.getPriceChangePercentAsDouble()));
+		values.lazySet(TRADE_PRICE, Double.doubleToRawLongBits(staging.getTradePriceAsDouble()));
+		values.lazySet(TRADE_SIZE, staging.getTradeSizeAsInt());
+		values.lazySet(BID_PRICE, Double.doubleToRawLongBits(staging.getBidPriceAsDouble()));
+		values.lazySet(BID_SIZE, staging.getBidSizeAsInt());
+		values.lazySet(ASK_PRICE, Double.doubleToRawLongBits(staging.getAskPriceAsDouble()));
+		values.lazySet(ASK_SIZE, staging.getAskSizeAsInt());
+		values.lazySet(OPEN_PRICE, Double.doubleToRawLongBits(staging.getOpenPriceAsDouble()));
+		values.lazySet(HIGH_PRICE, Double.doubleToRawLongBits(staging.getHighPriceAsDouble()));
+		values.lazySet(LOW_PRICE, Double.doubleToRawLongBits(staging.getLowPriceAsDouble()));
+		values.lazySet(SETTLEMENT_PRICE, Double.doubleToRawLongBits(staging.getSettlementPriceAsDouble()));
+		values.lazySet(VOLUME, staging.getVolumeAsInt());
+		values.lazySet(OPEN_INTEREST, staging.getOpenInterestAsInt());
+		
+		text.lazySet(FLAG_TEXT, staging.getFlag());
+		text.lazySet(MODE_TEXT, staging.getMode());
+		text.lazySet(SESSION_TEXT, staging.getSession());
+		text.lazySet(DAY_TEXT, staging.getDay());
+		text.lazySet(TIME_TEXT, staging.getTime());
+		text.lazySet(TIME_DISPLAY_TEXT, staging.getTimeDisplay());
+		
+		version.lazySet(current + 2);
+	}
+	
+	public PrimitiveMutableQuote read() {
+		final PrimitiveMutableQuote returnRef = new PrimitiveMutableQuote(symbol);
+		
+		read(returnRef);
+		
+		return returnRef;
+	}
+	
+	/* Copies a consistent snapshot into the target, returning its version. */
+	public long read(final MutablePrimitiveQuote target) {
+		if (target == null) {
+			throw new IllegalArgumentException("The \"target\" argument is required.");
+		}
+		
+		if (!symbol.equals(target.getSymbol())) {
+			throw new IllegalArgumentException(String.format("The versioned quote does not apply to the \"target\" (target symbol: %s).", target.getSymbol()));
+		}
+		
+		long before;
+		int retries = 0;
+		
+		while (true) {
+			before = version.get();
+			
+			if ((before & 1L) == 0) {
+				copy(target);
+				
+				if (version.get() == before) {
+					break;
+				}
+			}
+			
+			/* The writer may have been descheduled mid-update; let it finish. */
+			if ((++retries & SPINS) == 0) {
+				Thread.yield();
+			}
+		}
+		
+		if (retries != 0) {
+			retryCount.addAndGet(retries);
+		}
+		
+		return before;
+	}
+	
+	private void copy(final MutablePrimitiveQuote target) {
+		final int fieldMask = (int)values.get(FIELD_MASK);
+		
+		if ((fieldMask & QuoteField.ONLINE) != 0) {
+			target.setOnline(values.get(ONLINE) != 0);
+		}
+		
+		if ((fieldMask & QuoteField.SEQUENCE) != 0) {
+			target.setSequence((int)values.get(SEQUENCE));
+		} else {
+			target.clearSequence();
+		}
+		
+		if ((fieldMask & QuoteField.DAY_NUM) != 0) {
+			target.setDayNum((int)values.get(DAY_NUM));
+		} else {
+			target.clearDayNum();
+		}
+		
+		if ((fieldMask & QuoteField.LAST_PRICE) != 0) {
+			target.setLastPrice(Double.longBitsToDouble(values.get(LAST_PRICE)));
+		} else {
+			target.clearLastPrice();
+		}
+		
+		if ((fieldMask & QuoteField.PREVIOUS_PRICE) != 0) {
+			target.setPreviousPrice(Double.longBitsToDouble(values.get(PREVIOUS_PRICE)));
+		} else {
+			target.clearPreviousPrice();
+		}
+		
+		if ((fieldMask & QuoteField.PRICE_CHANGE) != 0) {
+			target.setPriceChange(Double.longBitsToDouble(values.get(PRICE_CHANGE)));
+		} else {
+			target.clearPriceChange();
+		}
+		
+		if ((fieldMask & QuoteField.PRICE_CHANGE_PERCENT) != 0) {
+			target.setPriceChangePercent(Double.longBitsToDouble(values.get(PRICE_CHANGE_PERCENT)));
+		} else {
+			target.clearPriceChangePercent();
+		}
+		
+		if ((fieldMask & QuoteField.TRADE_PRICE) != 0) {
+			target.setTradePrice(Double.longBitsToDouble(values.get(TRADE_PRICE)));
+		} else {
+			target.clearTradePrice();
+		}
+		
+		if ((fieldMask & QuoteField.TRADE_SIZE) != 0) {
+			target.setTradeSize((int)values.get(TRADE_SIZE));
+		} else {
+			target.clearTradeSize();
+		}
+		
+		if ((fieldMask & QuoteField.BID_PRICE) != 0) {
+			target.setBidPrice(Double.longBitsToDouble(values.get(BID_PRICE)));
+		} else {
+			target.clearBidPrice();
+		}
+		
+		if ((fieldMask & QuoteField.BID_SIZE) != 0) {
+			target.setBidSize((int)values.get(BID_SIZE));
+		} else {
+			target.clearBidSize();
+		}
+		
+		if ((fieldMask & QuoteField.ASK_PRICE) != 0) {
+			target.setAskPrice(Double.longBitsToDouble(values.get(ASK_PRICE)));
+		} else {
+			target.clearAskPrice();
+		}
+		
+		if ((fieldMask & QuoteField.ASK_SIZE) != 0) {
+			target.setAskSize((int)values.get(ASK_SIZE));
+		} else {
+			target.clearAskSize();
+		}
+		
+		if ((fieldMask & QuoteField.OPEN_PRICE) != 0) {
+			target.setOpenPrice(Double.longBitsToDouble(values.get(OPEN_PRICE)));
+		} else {
+			target.clearOpenPrice();
+		}
+		
+		if ((fieldMask & QuoteField.HIGH_PRICE) != 0) {
+			target.setHighPrice(Double.longBitsToDouble(values.get(HIGH_PRICE)));
+		} else {
+			target.clearHighPrice();
+		}
+		
+		if ((fieldMask & QuoteField.LOW_PRICE) != 0) {
+			target.setLowPrice(Double.longBitsToDouble(values.get(LOW_PRICE)));
+		} else {
+			target.clearLowPrice();
+		}
+		
+		if ((fieldMask & QuoteField.SETTLEMENT_PRICE) != 0) {
+			target.setSettlementPrice(Double.longBitsToDouble(values.get(SETTLEMENT_PRICE)));
+		} else {
+			target.clearSettlementPrice();
+		}
+		
+		if ((fieldMask & QuoteField.VOLUME) != 0) {
+			target.setVolume((int)values.get(VOLUME));
+		} else {
+			target.clearVolume();
+		}
+		
+		if ((fieldMask & QuoteField.OPEN_INTEREST) != 0) {
+			target.setOpenInterest((int)values.get(OPEN_INTEREST));
+		} else {
+			target.clearOpenInterest();
+		}
+		
+		target.setFlag(text.get(FLAG_TEXT));
+		target.setMode(text.get(MODE_TEXT));
+		target.setSession(text.get(SESSION_TEXT));
+		target.setDay(text.get(DAY_TEXT));
+		target.setTime(text.get(TIME_TEXT));
+		target.setTimeDisplay(text.get(TIME_DISPLAY_TEXT));
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("[VersionedQuote (symbol: %s, version: %s)]", symbol, version.get());
+	}
+}
@@ -0,0 +1,160 @@
+package com.barchart.common.messaging;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.barchart.common.Action;
+
+public class RingBufferDispatcherTest {
+	private RingBufferDispatcher dispatcher;
+	
+	@After
+	public void tearDown() {
+		if (dispatcher != null) {
+			dispatcher.dispose();
+		}
+	}
+	
+	@Test
+	public void testDispatchesInOrderAcrossWrapAround() throws InterruptedException {
+		dispatcher = new RingBufferDispatcher("test", 4, WaitStrategy.Blocking);
+		
+		final List<Integer> executed = new ArrayList<Integer>();
+		final CountDownLatch done = new CountDownLatch(1);
+		
+		final Action<Integer> action = new Action<Integer>() {
+			@Override
+			public void execute(final Integer item) {
+				executed.add(item);
+				
+				if (item.intValue() == 99) {
+					done.countDown();
+				}
+			}
+		};
+		
+		for (int i = 0; i < 100; i++) {
+			dispatcher.dispatch(0, action, Integer.valueOf(i));
+		}
+		
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+		
+		assertEquals(100, executed.size());
+		
+		for (int i = 0; i < 100; i++) {
+			assertEquals(i, executed.get(i).intValue());
+		}
+		
+		assertEquals(100, dispatcher.getDispatchedCount());
+		assertEquals(0, dispatcher.getDroppedCount());
+	}
+	
+	@Test
+	public void testDispatchesFromSeveralProducersInPublishedOrder() throws InterruptedException {
+		dispatcher = new RingBufferDispatcher("test", 8, WaitStrategy.Yielding);
+		
+		final int producers = 4;
+		final int items = 1000;
+		
+		final int[] last = new int[producers];
+		final boolean[] ordered = new boolean[] { true };
+		final CountDownLatch done = new CountDownLatch(producers * items);
+		
+		final Action<int[]> action = new Action<int[]>() {
+			@Override
+			public void execute(final int[] item) {
+				if (item[1] != last[item[0]] + 1) {
+					ordered[0] = false;
+				}
+				
+				last[item[0]] = item[1];
+				
+				done.countDown();
+			}
+		};
+		
+		final List<Thread> threads = new ArrayList<Thread>(producers);
+		
+		for (int i = 0; i < producers; i++) {
+			final int producer = i;
+			
+			threads.add(new Thread(new Runnable() {
+				@Override
+				public void run() {
+					for (int j = 1; j <= items; j++) {
+						dispatcher.dispatch(producer, action, new int[] { producer, j });
+					}
+				}
+			}));
+		}
+		
+		for (int i = 0; i < producers; i++) {
+			threads.get(i).start();
+		}
+		
+		assertTrue(done.await(10, TimeUnit.SECONDS));
+		
+		assertTrue(ordered[0]);
+		
+		for (int i = 0; i < producers; i++) {
+			assertEquals(items, last[i]);
+		}
+	}
+	
+	@Test
+	public void testFailingActionIsCountedAsDropped() throws InterruptedException {
+		dispatcher = new RingBufferDispatcher("test", 4, WaitStrategy.Blocking);
+		
+		final CountDownLatch done = new CountDownLatch(1);
+		
+		dispatcher.dispatch(0, new Action<Object>() {
+			@Override
+			public void execute(final Object item) {
+				throw new Error("Failed deliberately.");
+			}
+		}, null);
+		
+		dispatcher.dispatch(0, new Action<Object>() {
+			@Override
+			public void execute(final Object item) {
+				done.countDown();
+			}
+		}, null);
+		
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+		
+		assertEquals(1, dispatcher.getDroppedCount());
+	}
+	
+	@Test
+	public void testDisposedDispatcherDropsWork() {
+		dispatcher = new RingBufferDispatcher("test", 4, WaitStrategy.Blocking);
+		
+		dispatcher.dispose();
+		
+		final boolean[] executed = new boolean[] { false };
+		
+		dispatcher.dispatch(0, new Action<Object>() {
+			@Override
+			public void execute(final Object item) {
+				executed[0] = true;
+			}
+		}, null);
+		
+		assertEquals(1, dispatcher.getDroppedCount());
+		assertEquals(false, executed[0]);
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testCapacityMustBePowerOfTwo() {
+		new RingBufferDispatcher("test", 6, WaitStrategy.Blocking);
+	}
+}
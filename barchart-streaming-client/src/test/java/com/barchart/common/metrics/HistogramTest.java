@@ -0,0 +1,96 @@
+package com.barchart.common.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class HistogramTest {
+	@Test
+	public void testSmallValuesAreExact() {
+		final Histogram histogram = new Histogram("test", 1L << 20, 5);
+		
+		for (int i = 0; i < 32; i++) {
+			histogram.record(i);
+		}
+		
+		assertEquals(32, histogram.getCount());
+		assertEquals(0, histogram.getMinimum());
+		assertEquals(31, histogram.getMaximum());
+		assertEquals(15.5, histogram.getMean(), 0.0);
+		
+		assertEquals(15, histogram.get50thPercentile());
+		assertEquals(28, histogram.get90thPercentile());
+		assertEquals(31, histogram.getValueAtPercentile(100.0));
+		assertEquals(0, histogram.getValueAtPercentile(0.0));
+	}
+	
+	@Test
+	public void testPercentileIsWithinPrecisionOfValue() {
+		final int precision = 5;
+		final long highest = 1L << 40;
+		
+		for (long value = 1; value < highest; value = value * 3 / 2 + 1) {
+			final Histogram histogram = new Histogram("test", highest, precision);
+			
+			histogram.record(value);
+			histogram.record(highest);
+			
+			final long reported = histogram.getValueAtPercentile(50.0);
+			
+			assertTrue(String.format("%s reported as %s", value, reported), reported >= value);
+			assertTrue(String.format("%s reported as %s", value, reported), reported - value <= value >> (precision - 1));
+		}
+	}
+	
+	@Test
+	public void testValuesInSameBucketReportSameValue() {
+		final Histogram histogram = new Histogram("test", 1L << 20, 5);
+		
+		histogram.record(1000);
+		histogram.record(1010);
+		histogram.record(1L << 20);
+		
+		final long first = histogram.getValueAtPercentile(33.0);
+		final long second = histogram.getValueAtPercentile(66.0);
+		
+		assertEquals(first, second);
+		assertTrue(first >= 1010);
+	}
+	
+	@Test
+	public void testValuesOutOfRangeAreBounded() {
+		final Histogram histogram = new Histogram("test", 1L << 20, 5);
+		
+		histogram.record(-5);
+		histogram.record(1L << 30);
+		
+		assertEquals(0, histogram.getMinimum());
+		assertEquals(1L << 20, histogram.getMaximum());
+		assertEquals(0, histogram.getValueAtPercentile(50.0));
+		assertEquals(1L << 20, histogram.getValueAtPercentile(100.0));
+	}
+	
+	@Test
+	public void testSnapshotWithResetMovesCounts() {
+		final Histogram histogram = new Histogram("test", 1L << 20, 5);
+		
+		histogram.record(100);
+		histogram.record(200);
+		
+		final Histogram snapshot = histogram.getSnapshot(true);
+		
+		assertEquals("test", snapshot.getName());
+		assertEquals(2, snapshot.getCount());
+		assertEquals(200, snapshot.getMaximum());
+		
+		assertEquals(0, histogram.getCount());
+		assertEquals(0, histogram.getMaximum());
+		assertEquals(0, histogram.getValueAtPercentile(100.0));
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testHighestTrackableValueMustCoverPrecision() {
+		new Histogram("test", 16, 5);
+	}
+}
@@ -0,0 +1,124 @@
+package com.barchart.streaming.connection;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.barchart.common.Action;
+import com.barchart.streaming.data.QuoteChange;
+import com.barchart.streaming.data.QuoteTable;
+
+public class ArbitratingMarketSocketConnectionTest {
+	private static final String SYMBOL = "ESZ6";
+	
+	private MarketSocketConnection primary;
+	private MarketSocketConnection secondary;
+	private ArbitratingMarketSocketConnection connection;
+	
+	private List<String> delivered;
+	
+	@Before
+	public void setUp() {
+		primary = new MarketSocketConnection("127.0.0.1", 1, false);
+		secondary = new MarketSocketConnection("127.0.0.1", 2, false);
+		
+		connection = new ArbitratingMarketSocketConnection(primary, secondary);
+		
+		delivered = new ArrayList<String>();
+		
+		connection.subscribeToQuoteChanges(SYMBOL, new Action<QuoteChange>() {
+			@Override
+			public void execute(final QuoteChange change) {
+				delivered.add(change.getQuote().getSequence() + (change.getIsSnapshot() ? "s" : ""));
+			}
+		});
+	}
+	
+	@After
+	public void tearDown() {
+		connection.dispose();
+	}
+	
+	@Test
+	public void testFirstCopyIsDeliveredAndDuplicateDropped() throws JSONException {
+		primary.onQuoteSnapshot(getMessage(100));
+		secondary.onQuoteSnapshot(getMessage(100));
+		
+		primary.onQuoteDelta(getMessage(101));
+		secondary.onQuoteDelta(getMessage(101));
+		
+		secondary.onQuoteDelta(getMessage(102));
+		primary.onQuoteDelta(getMessage(102));
+		
+		assertEquals(Arrays.asList("100s", "101", "102"), delivered);
+		
+		assertEquals(3, connection.getDuplicateCount());
+		assertEquals(0, connection.getStaleCount());
+		assertEquals(2, connection.getWinCount(0));
+		assertEquals(1, connection.getWinCount(1));
+		assertEquals(2, connection.getLeadCount(0));
+		assertEquals(1, connection.getLeadCount(1));
+	}
+	
+	@Test
+	public void testOlderUpdateIsStale() throws JSONException {
+		primary.onQuoteSnapshot(getMessage(100));
+		primary.onQuoteDelta(getMessage(102));
+		primary.onQuoteDelta(getMessage(101));
+		
+		secondary.onQuoteSnapshot(getMessage(100));
+		secondary.onQuoteDelta(getMessage(90));
+		
+		assertEquals(Arrays.asList("100s", "102"), delivered);
+		
+		assertEquals(2, connection.getStaleCount());
+		assertEquals(1, connection.getDuplicateCount());
+		assertEquals(0, connection.getResetCount());
+	}
+	
+	@Test
+	public void testRenumberedSymbolResetsArbitration() throws JSONException {
+		primary.onQuoteSnapshot(getMessage(100));
+		secondary.onQuoteSnapshot(getMessage(100));
+		
+		primary.onQuoteSnapshot(getMessage(1));
+		primary.onQuoteDelta(getMessage(2));
+		
+		secondary.onQuoteSnapshot(getMessage(1));
+		secondary.onQuoteDelta(getMessage(2));
+		secondary.onQuoteDelta(getMessage(3));
+		
+		assertEquals(Arrays.asList("100s", "1s", "2", "3"), delivered);
+		
+		assertEquals(1, connection.getResetCount());
+		assertEquals(3, connection.getDuplicateCount());
+		assertEquals(0, connection.getStaleCount());
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testLegsCannotShareQuoteTable() {
+		final MarketSocketConnectionOptions options = new MarketSocketConnectionOptions();
+		
+		options.setQuoteTable(new QuoteTable(16));
+		
+		new ArbitratingMarketSocketConnection("127.0.0.1", "127.0.0.2", 80, false, options);
+	}
+	
+	private static JSONObject getMessage(final int sequence) throws JSONException {
+		final JSONObject returnRef = new JSONObject();
+		
+		returnRef.put("symbol", SYMBOL);
+		returnRef.put("sequence", sequence);
+		returnRef.put("lastPrice", 100.0 + sequence);
+		
+		return returnRef;
+	}
+}
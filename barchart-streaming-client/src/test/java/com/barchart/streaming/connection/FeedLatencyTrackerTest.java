@@ -0,0 +1,72 @@
+package com.barchart.streaming.connection;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.TimeZone;
+
+import org.junit.Test;
+
+public class FeedLatencyTrackerTest {
+	private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+	private static final TimeZone CHICAGO = TimeZone.getTimeZone("America/Chicago");
+	
+	@Test
+	public void testParsesUtcTime() {
+		assertEquals(getTime(2016, 3, 16, 14, 31, 2, 250), FeedLatencyTracker.parseTime("2016-03-16T14:31:02.250Z", CHICAGO));
+		assertEquals(getTime(2016, 3, 16, 14, 31, 2, 0), FeedLatencyTracker.parseTime("2016-03-16T14:31:02Z", CHICAGO));
+	}
+	
+	@Test
+	public void testParsesOffsetTime() {
+		assertEquals(getTime(2016, 3, 16, 9, 1, 2, 500), FeedLatencyTracker.parseTime("2016-03-16T14:31:02.5+05:30", UTC));
+		assertEquals(getTime(2016, 3, 16, 19, 31, 2, 0), FeedLatencyTracker.parseTime("2016-03-16T14:31:02-0500", UTC));
+		assertEquals(getTime(2016, 3, 1, 0, 0, 0, 0), FeedLatencyTracker.parseTime("2016-02-29 23:00:00-01:00", UTC));
+	}
+	
+	@Test
+	public void testParsesTimeWithoutZoneInDefaultZone() {
+		assertEquals(getTime(2016, 3, 16, 19, 31, 2, 250), FeedLatencyTracker.parseTime("2016-03-16T14:31:02.250", CHICAGO));
+		assertEquals(getTime(2016, 1, 15, 20, 31, 2, 250), FeedLatencyTracker.parseTime("2016-01-15T14:31:02.250", CHICAGO));
+		assertEquals(getTime(2016, 1, 15, 14, 31, 2, 250), FeedLatencyTracker.parseTime("2016-01-15T14:31:02.250", UTC));
+	}
+	
+	@Test
+	public void testParsesEpochMilliseconds() {
+		assertEquals(1458138662250L, FeedLatencyTracker.parseTime("1458138662250", CHICAGO));
+	}
+	
+	@Test
+	public void testRejectsInvalidTime() {
+		final String[] texts = new String[] { null, "", "now", "2016-03-16", "2016-13-16T14:31:02", "2016-03-16T24:31:02", "2016-03-16T14:31:02+5", "2016-03-16T14:31:02Q", "2016/03/16T14:31:02" };
+		
+		for (int i = 0; i < texts.length; i++) {
+			assertEquals(String.valueOf(texts[i]), FeedLatencyTracker.INVALID_TIME, FeedLatencyTracker.parseTime(texts[i], UTC));
+		}
+	}
+	
+	@Test
+	public void testCountsInvalidTimes() {
+		final FeedLatencyTracker tracker = new FeedLatencyTracker(UTC);
+		
+		tracker.onDelta(0, "ESZ6", "yesterday", System.currentTimeMillis());
+		tracker.onDelta(0, "ESZ6", "", System.currentTimeMillis());
+		tracker.onTimestamp("2016-03-16T14:31:02Z", getTime(2016, 3, 16, 14, 31, 2, 40));
+		
+		assertEquals(1, tracker.getInvalidTimeCount());
+		assertEquals(null, tracker.getSymbolHistogram(0));
+		assertEquals(1, tracker.getTimestampHistogram().getCount());
+		assertEquals(40, tracker.getTimestampHistogram().getMaximum());
+	}
+	
+	private static long getTime(final int year, final int month, final int day, final int hour, final int minute, final int second, final int millisecond) {
+		final Calendar calendar = new GregorianCalendar(UTC);
+		
+		calendar.clear();
+		calendar.set(year, month - 1, day, hour, minute, second);
+		calendar.set(Calendar.MILLISECOND, millisecond);
+		
+		return calendar.getTimeInMillis();
+	}
+}
@@ -0,0 +1,124 @@
+package com.barchart.streaming.connection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.barchart.common.Action;
+import com.barchart.common.messaging.HashedWheelTimer;
+
+public class SequenceTrackerTest {
+	private HashedWheelTimer timer;
+	private AtomicInteger recoveries;
+	private SequenceTracker tracker;
+	
+	@Before
+	public void setUp() {
+		timer = new HashedWheelTimer("test", 10, 64);
+		recoveries = new AtomicInteger(0);
+		
+		tracker = new SequenceTracker(60000, timer, new Action<Integer>() {
+			@Override
+			public void execute(final Integer symbolId) {
+				recoveries.incrementAndGet();
+			}
+		});
+	}
+	
+	@After
+	public void tearDown() {
+		tracker.dispose();
+		timer.dispose();
+	}
+	
+	@Test
+	public void testGapMarksSymbolStaleUntilSnapshot() {
+		tracker.onSnapshot(1, Integer.valueOf(10));
+		
+		assertEquals(SequenceTracker.ACCEPT, tracker.onDelta(1, Integer.valueOf(11)));
+		assertEquals(SequenceTracker.GAP, tracker.onDelta(1, Integer.valueOf(13)));
+		
+		assertTrue(tracker.getIsStale(1));
+		
+		assertEquals(SequenceTracker.DISCARD, tracker.onDelta(1, Integer.valueOf(14)));
+		assertEquals(SequenceTracker.DISCARD, tracker.onDelta(1, Integer.valueOf(12)));
+		
+		tracker.onSnapshot(1, Integer.valueOf(20));
+		
+		assertFalse(tracker.getIsStale(1));
+		
+		assertEquals(SequenceTracker.ACCEPT, tracker.onDelta(1, Integer.valueOf(21)));
+		
+		assertEquals(1, tracker.getGapCount());
+		assertEquals(2, tracker.getDiscardedCount());
+		assertEquals(1, tracker.getRecoveredCount());
+		assertEquals(0, timer.getPendingCount());
+	}
+	
+	@Test
+	public void testOlderDeltaIsDiscardedWithoutGap() {
+		tracker.onSnapshot(1, Integer.valueOf(10));
+		
+		assertEquals(SequenceTracker.ACCEPT, tracker.onDelta(1, Integer.valueOf(11)));
+		assertEquals(SequenceTracker.DISCARD, tracker.onDelta(1, Integer.valueOf(11)));
+		
+		assertFalse(tracker.getIsStale(1));
+		assertEquals(0, tracker.getGapCount());
+	}
+	
+	@Test
+	public void testUnsequencedDeltasAreAccepted() {
+		assertEquals(SequenceTracker.ACCEPT, tracker.onDelta(1, Integer.valueOf(5)));
+		
+		tracker.onSnapshot(1, null);
+		
+		assertEquals(SequenceTracker.ACCEPT, tracker.onDelta(1, Integer.valueOf(30)));
+		assertEquals(SequenceTracker.ACCEPT, tracker.onDelta(1, null));
+		assertEquals(SequenceTracker.ACCEPT, tracker.onDelta(1, Integer.valueOf(31)));
+	}
+	
+	@Test
+	public void testInvalidateClearsStaleSymbols() {
+		tracker.onSnapshot(1, Integer.valueOf(10));
+		tracker.onDelta(1, Integer.valueOf(15));
+		
+		tracker.invalidate();
+		
+		assertFalse(tracker.getIsStale(1));
+		assertEquals(SequenceTracker.ACCEPT, tracker.onDelta(1, Integer.valueOf(40)));
+		assertEquals(0, timer.getPendingCount());
+	}
+	
+	@Test
+	public void testSnapshotIsRequestedAgainUntilItArrives() throws InterruptedException {
+		final CountDownLatch requested = new CountDownLatch(3);
+		
+		final SequenceTracker retrying = new SequenceTracker(20, timer, new Action<Integer>() {
+			@Override
+			public void execute(final Integer symbolId) {
+				assertEquals(7, symbolId.intValue());
+				
+				requested.countDown();
+			}
+		});
+		
+		retrying.onSnapshot(7, Integer.valueOf(1));
+		
+		assertEquals(SequenceTracker.GAP, retrying.onDelta(7, Integer.valueOf(3)));
+		
+		assertTrue(requested.await(5, TimeUnit.SECONDS));
+		
+		retrying.onSnapshot(7, Integer.valueOf(10));
+		
+		assertEquals(0, timer.getPendingCount());
+		assertEquals(0, recoveries.get());
+	}
+}
@@ -0,0 +1,127 @@
+package com.barchart.streaming.connection;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SubscriptionCoalescerTest {
+	private ManualScheduler scheduler;
+	private List<String> sent;
+	private SubscriptionCoalescer coalescer;
+	
+	@Before
+	public void setUp() {
+		scheduler = new ManualScheduler();
+		sent = new ArrayList<String>();
+		
+		coalescer = new SubscriptionCoalescer("test", scheduler, 100) {
+			@Override
+			protected void send(final String[] symbols, final boolean subscribe) {
+				sent.add((subscribe ? "+" : "-") + Arrays.toString(symbols));
+			}
+		};
+	}
+	
+	@After
+	public void tearDown() {
+		scheduler.shutdownNow();
+	}
+	
+	@Test
+	public void testReversedChangeCancelsPendingChange() {
+		coalescer.change(Arrays.asList("ESZ6"), true);
+		coalescer.change(Arrays.asList("ESZ6"), false);
+		
+		assertEquals(0, coalescer.getPendingCount());
+		
+		scheduler.runScheduled();
+		
+		assertEquals(0, sent.size());
+		assertEquals(2, coalescer.getChangeCount());
+		assertEquals(1, coalescer.getCancelledCount());
+		assertEquals(0, coalescer.getFlushCount());
+	}
+	
+	@Test
+	public void testSurvivingChangesAreSentTogether() {
+		coalescer.change(Arrays.asList("ESZ6", "NQZ6"), true);
+		coalescer.change(Arrays.asList("CLZ6"), false);
+		coalescer.change(Arrays.asList("ESZ6"), false);
+		coalescer.change(Arrays.asList("GCZ6"), true);
+		
+		assertEquals(1, scheduler.getScheduledCount());
+		
+		scheduler.runScheduled();
+		
+		assertEquals(Arrays.asList("-[CLZ6]", "+[NQZ6, GCZ6]"), sent);
+		assertEquals(1, coalescer.getCancelledCount());
+		assertEquals(1, coalescer.getFlushCount());
+	}
+	
+	@Test
+	public void testRepeatedChangeIsSentOnce() {
+		coalescer.change(Arrays.asList("ESZ6"), true);
+		coalescer.change(Arrays.asList("ESZ6"), true);
+		
+		scheduler.runScheduled();
+		
+		assertEquals(Arrays.asList("+[ESZ6]"), sent);
+		assertEquals(0, coalescer.getCancelledCount());
+	}
+	
+	@Test
+	public void testChangeAfterFlushStartsNewWindow() {
+		coalescer.change(Arrays.asList("ESZ6"), true);
+		
+		scheduler.runScheduled();
+		
+		coalescer.change(Arrays.asList("ESZ6"), false);
+		
+		assertEquals(1, scheduler.getScheduledCount());
+		
+		scheduler.runScheduled();
+		
+		assertEquals(Arrays.asList("+[ESZ6]", "-[ESZ6]"), sent);
+		assertEquals(2, coalescer.getFlushCount());
+	}
+	
+	private static final class ManualScheduler extends ScheduledThreadPoolExecutor {
+		private final List<Runnable> scheduled;
+		
+		public ManualScheduler() {
+			super(1);
+			
+			this.scheduled = new ArrayList<Runnable>();
+		}
+		
+		@Override
+		public ScheduledFuture<?> schedule(final Runnable command, final long delay, final TimeUnit unit) {
+			scheduled.add(command);
+			
+			return null;
+		}
+		
+		public int getScheduledCount() {
+			return scheduled.size();
+		}
+		
+		public void runScheduled() {
+			final List<Runnable> commands = new ArrayList<Runnable>(scheduled);
+			
+			scheduled.clear();
+			
+			for (int i = 0; i < commands.size(); i++) {
+				commands.get(i).run();
+			}
+		}
+	}
+}